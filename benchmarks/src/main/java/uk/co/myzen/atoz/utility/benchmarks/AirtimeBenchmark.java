@@ -0,0 +1,110 @@
+package uk.co.myzen.atoz.utility.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.myzen.atoz.utility.Airtime;
+import uk.co.myzen.atoz.utility.Airtime.AirtimeException;
+import uk.co.myzen.atoz.utility.Airtime.Band;
+
+/**
+ * @author howard
+ *
+ *         Airtime instance lookup and the forward and inverse table queries,
+ *         cycling through payload sizes and airtimes within the table, and an
+ *         oversized payload rejected by exception and by sentinel.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AirtimeBenchmark {
+
+	private static final int[] SPREADING_FACTORS = { 7, 8, 9, 10, 11, 12 };
+
+	private Airtime airtime;
+
+	private int payloadSize;
+
+	private int sf;
+
+	private float msAirtime;
+
+	@Setup
+	public void setUp() throws AirtimeException {
+
+		airtime = Airtime.getInstance(Band.EU868, 125000, 7);
+	}
+
+	@Benchmark
+	public Airtime getInstance() throws AirtimeException {
+
+		sf = (sf + 1) % SPREADING_FACTORS.length;
+
+		return Airtime.getInstance(Band.EU868, 125000, SPREADING_FACTORS[sf]);
+	}
+
+	@Benchmark
+	public float msAirtimeEstimate() throws AirtimeException {
+
+		payloadSize = (payloadSize + 1) % (airtime.getMaximumPayloadSize() + 1);
+
+		return airtime.msAirtimeEstimate(payloadSize);
+	}
+
+	@Benchmark
+	public int getMaxPayloadSizeForAirtime() throws AirtimeException {
+
+		// stays below the last step, which is reported by exception
+		msAirtime = msAirtime > 300 ? 40 : msAirtime + 1.7f;
+
+		return airtime.getMaxPayloadSizeForAirtime(msAirtime);
+	}
+
+	@Benchmark
+	public float rejectedPayloadException() {
+
+		try {
+
+			return airtime.msAirtimeEstimate(airtime.getMaximumPayloadSize() + 1);
+
+		} catch (AirtimeException e) {
+
+			return e.getContext();
+		}
+	}
+
+	@Benchmark
+	public String rejectedPayloadMessage() {
+
+		try {
+
+			return String.valueOf(airtime.msAirtimeEstimate(airtime.getMaximumPayloadSize() + 1));
+
+		} catch (AirtimeException e) {
+
+			return e.getMessage();
+		}
+	}
+
+	@Benchmark
+	public float rejectedPayloadSentinel() {
+
+		float msEstimate = airtime.tryMsAirtimeEstimate(airtime.getMaximumPayloadSize() + 1);
+
+		return Airtime.INVALID == msEstimate ? airtime.getMaxAirtime() : msEstimate;
+	}
+}
@@ -0,0 +1,124 @@
+package uk.co.myzen.atoz.utility.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.myzen.atoz.utility.Cartesian;
+import uk.co.myzen.atoz.utility.CartesianBuffer;
+
+/**
+ * @author howard
+ *
+ *         Cartesian construction and rounding, and the mean of lists of
+ *         several sizes alongside the same points held in a CartesianBuffer.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CartesianBenchmark {
+
+	private static final int POINTS = 1024; // power of two
+
+	private double[] lats;
+	private double[] lons;
+
+	private Cartesian[] cartesians;
+
+	private int index;
+
+	@Setup
+	public void setUp() {
+
+		SplittableRandom random = new SplittableRandom(3);
+
+		lats = random.doubles(POINTS, -80, 80).toArray();
+		lons = random.doubles(POINTS, -180, 180).toArray();
+
+		cartesians = new Cartesian[POINTS];
+
+		for (int i = 0; i < POINTS; i++) {
+
+			cartesians[i] = new Cartesian(lats[i], lons[i], 100);
+		}
+	}
+
+	private int next() {
+
+		return index = (index + 1) & (POINTS - 1);
+	}
+
+	@Benchmark
+	public Cartesian construct() {
+
+		int i = next();
+
+		return new Cartesian(lats[i], lons[i], 100);
+	}
+
+	@Benchmark
+	public String toRoundLatitude() {
+
+		return cartesians[next()].toRoundLatitude(6);
+	}
+
+	@State(Scope.Thread)
+	public static class Points {
+
+		@Param({ "10", "1000", "100000" })
+		private int size;
+
+		private List<Cartesian> list;
+
+		private CartesianBuffer buffer;
+
+		@Setup
+		public void setUp() {
+
+			SplittableRandom random = new SplittableRandom(4);
+
+			list = new ArrayList<Cartesian>(size);
+
+			buffer = new CartesianBuffer(size);
+
+			for (int i = 0; i < size; i++) {
+
+				double lat = random.nextDouble(50, 52);
+				double lon = random.nextDouble(-1, 1);
+
+				list.add(new Cartesian(lat, lon, 100));
+
+				buffer.addLocation(lat, lon, 100);
+			}
+		}
+	}
+
+	@Benchmark
+	public Cartesian getMean(Points points) {
+
+		return Cartesian.getMean(points.list);
+	}
+
+	@Benchmark
+	public Cartesian getMeanBuffer(Points points) {
+
+		return points.buffer.getMean();
+	}
+}
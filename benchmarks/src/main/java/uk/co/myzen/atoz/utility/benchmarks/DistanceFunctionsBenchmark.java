@@ -0,0 +1,109 @@
+package uk.co.myzen.atoz.utility.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.myzen.atoz.utility.DistanceFunction;
+import uk.co.myzen.atoz.utility.DistanceFunctions;
+import uk.co.myzen.atoz.utility.GeoPoint;
+import uk.co.myzen.atoz.utility.Haversine;
+
+/**
+ * @author howard
+ *
+ *         Each {@link DistanceFunctions} mode, one call at a time and over a
+ *         column of pairs, cycling through random pairs within 100 miles of a
+ *         reference at 50N so every mode stays within its documented bound.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DistanceFunctionsBenchmark {
+
+	private static final int POINTS = 1024; // power of two
+
+	@Param({ "HAVERSINE", "EQUIRECTANGULAR", "TANGENT_PLANE", "POLYNOMIAL" })
+	private DistanceFunctions.Mode mode;
+
+	private DistanceFunction function;
+
+	private double[] localLats;
+	private double[] localLons;
+	private double[] remoteLats;
+	private double[] remoteLons;
+
+	private double[] distances;
+
+	private int index;
+
+	@Setup
+	public void setUp() {
+
+		Haversine haversine = new Haversine();
+
+		GeoPoint reference = new GeoPoint(50, -1);
+
+		function = DistanceFunctions.of(mode, haversine, reference);
+
+		SplittableRandom random = new SplittableRandom(5);
+
+		localLats = new double[POINTS];
+		localLons = new double[POINTS];
+		remoteLats = new double[POINTS];
+		remoteLons = new double[POINTS];
+
+		distances = new double[POINTS];
+
+		for (int i = 0; i < POINTS; i++) {
+
+			double bearing = random.nextDouble(0, 360);
+			double distance = random.nextDouble(0, 100);
+
+			localLats[i] = haversine.calculateRemoteLatitude(bearing, distance, reference.getLatitude());
+			localLons[i] = haversine.calculateRemoteLongitude(bearing, distance, reference.getLatitude(),
+					reference.getLongitude(), localLats[i]);
+
+			bearing = random.nextDouble(0, 360);
+			distance = random.nextDouble(0, 100);
+
+			remoteLats[i] = haversine.calculateRemoteLatitude(bearing, distance, reference.getLatitude());
+			remoteLons[i] = haversine.calculateRemoteLongitude(bearing, distance, reference.getLatitude(),
+					reference.getLongitude(), remoteLats[i]);
+		}
+	}
+
+	@Benchmark
+	public double distance() {
+
+		int i = index = (index + 1) & (POINTS - 1);
+
+		return function.distance(localLats[i], localLons[i], remoteLats[i], remoteLons[i]);
+	}
+
+	@Benchmark
+	public double[] distances() {
+
+		for (int i = 0; i < POINTS; i++) {
+
+			distances[i] = function.distance(localLats[i], localLons[i], remoteLats[i], remoteLons[i]);
+		}
+
+		return distances;
+	}
+}
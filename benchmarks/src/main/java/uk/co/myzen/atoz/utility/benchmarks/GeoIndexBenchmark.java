@@ -0,0 +1,155 @@
+package uk.co.myzen.atoz.utility.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.myzen.atoz.utility.GeoIndex;
+import uk.co.myzen.atoz.utility.GeoIndex.Neighbour;
+import uk.co.myzen.atoz.utility.GeoPoint;
+import uk.co.myzen.atoz.utility.Haversine;
+
+/**
+ * @author howard
+ *
+ *         Nearest neighbours and radius queries through GeoIndex against a
+ *         brute force scan of every point with Haversine.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GeoIndexBenchmark {
+
+	private static final int QUERIES = 256; // power of two
+
+	private static final int COUNT = 10;
+
+	private static final double RADIUS_MILES = 5;
+
+	@Param({ "10000", "100000" })
+	private int size;
+
+	private final Haversine haversine = new Haversine();
+
+	private GeoIndex<Integer> index;
+
+	private GeoPoint[] points;
+
+	private GeoPoint[] queries;
+
+	private double[] distances;
+
+	private int query;
+
+	@Setup
+	public void setUp() {
+
+		SplittableRandom random = new SplittableRandom(5);
+
+		index = new GeoIndex<Integer>();
+
+		points = new GeoPoint[size];
+
+		distances = new double[size];
+
+		// roughly the extent of Great Britain
+		for (int i = 0; i < size; i++) {
+
+			points[i] = new GeoPoint(random.nextDouble(50, 58), random.nextDouble(-6, 2));
+
+			index.insert(i, points[i]);
+		}
+
+		queries = new GeoPoint[QUERIES];
+
+		for (int i = 0; i < QUERIES; i++) {
+
+			queries[i] = new GeoPoint(random.nextDouble(50, 58), random.nextDouble(-6, 2));
+		}
+	}
+
+	private GeoPoint next() {
+
+		return queries[query = (query + 1) & (QUERIES - 1)];
+	}
+
+	@Benchmark
+	public List<Neighbour<Integer>> nearest() {
+
+		return index.nearest(next(), COUNT);
+	}
+
+	@Benchmark
+	public int[] nearestBruteForce() {
+
+		GeoPoint location = next();
+
+		for (int i = 0; i < size; i++) {
+
+			distances[i] = haversine.calculateDistance(location, points[i]);
+		}
+
+		// partial selection of the closest
+		int[] nearest = new int[COUNT];
+
+		for (int k = 0; k < COUNT; k++) {
+
+			int best = -1;
+
+			for (int i = 0; i < size; i++) {
+
+				if (best < 0 || distances[i] < distances[best]) {
+
+					best = i;
+				}
+			}
+
+			nearest[k] = best;
+
+			distances[best] = Double.MAX_VALUE;
+		}
+
+		return nearest;
+	}
+
+	@Benchmark
+	public List<Neighbour<Integer>> withinRadius() {
+
+		return index.withinRadius(next(), RADIUS_MILES);
+	}
+
+	@Benchmark
+	public List<Integer> withinRadiusBruteForce() {
+
+		GeoPoint location = next();
+
+		List<Integer> result = new ArrayList<Integer>();
+
+		for (int i = 0; i < size; i++) {
+
+			if (haversine.calculateDistance(location, points[i]) <= RADIUS_MILES) {
+
+				result.add(i);
+			}
+		}
+
+		return result;
+	}
+}
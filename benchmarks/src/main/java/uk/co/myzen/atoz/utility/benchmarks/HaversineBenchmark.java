@@ -0,0 +1,175 @@
+package uk.co.myzen.atoz.utility.benchmarks;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import uk.co.myzen.atoz.utility.GeoPoint;
+import uk.co.myzen.atoz.utility.Haversine;
+
+/**
+ * @author howard
+ *
+ *         Single calls to the Haversine entry points, cycling through random
+ *         point pairs so the JIT cannot fold the arguments, and the batch forms
+ *         over columns of points.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HaversineBenchmark {
+
+	private static final int POINTS = 1024; // power of two
+
+	private final Haversine haversine = new Haversine();
+
+	private double[] localLats;
+	private double[] localLons;
+	private double[] remoteLats;
+	private double[] remoteLons;
+
+	private double[] bearings;
+	private double[] distances;
+
+	private GeoPoint[] localPoints;
+	private GeoPoint[] remotePoints;
+
+	private int index;
+
+	@Setup
+	public void setUp() {
+
+		SplittableRandom random = new SplittableRandom(1);
+
+		localLats = new double[POINTS];
+		localLons = new double[POINTS];
+		remoteLats = new double[POINTS];
+		remoteLons = new double[POINTS];
+
+		bearings = new double[POINTS];
+		distances = new double[POINTS];
+
+		localPoints = new GeoPoint[POINTS];
+		remotePoints = new GeoPoint[POINTS];
+
+		for (int i = 0; i < POINTS; i++) {
+
+			localLats[i] = random.nextDouble(-80, 80);
+			localLons[i] = random.nextDouble(-180, 180);
+			remoteLats[i] = random.nextDouble(-80, 80);
+			remoteLons[i] = random.nextDouble(-180, 180);
+
+			bearings[i] = random.nextDouble(0, 360);
+			distances[i] = random.nextDouble(0, 5000);
+
+			localPoints[i] = new GeoPoint(localLats[i], localLons[i]);
+			remotePoints[i] = new GeoPoint(remoteLats[i], remoteLons[i]);
+		}
+	}
+
+	private int next() {
+
+		return index = (index + 1) & (POINTS - 1);
+	}
+
+	@Benchmark
+	public double calculateDistance() {
+
+		int i = next();
+
+		return haversine.calculateDistance(localLats[i], localLons[i], remoteLats[i], remoteLons[i]);
+	}
+
+	@Benchmark
+	public double calculateBearing() {
+
+		int i = next();
+
+		return haversine.calculateBearing(localLats[i], localLons[i], remoteLats[i], remoteLons[i]);
+	}
+
+	@Benchmark
+	public double calculateRemoteLatitude() {
+
+		int i = next();
+
+		return haversine.calculateRemoteLatitude(bearings[i], distances[i], localLats[i]);
+	}
+
+	@Benchmark
+	public double calculateRemoteLongitude() {
+
+		int i = next();
+
+		double remoteLat = haversine.calculateRemoteLatitude(bearings[i], distances[i], localLats[i]);
+
+		return haversine.calculateRemoteLongitude(bearings[i], distances[i], localLats[i], localLons[i], remoteLat);
+	}
+
+	@Benchmark
+	public double calculateDistanceGeoPoint() {
+
+		int i = next();
+
+		return haversine.calculateDistance(localPoints[i], remotePoints[i]);
+	}
+
+	@State(Scope.Thread)
+	public static class Batch {
+
+		@Param({ "1000", "100000" })
+		private int batchSize;
+
+		private double[] localLats;
+		private double[] localLons;
+		private double[] remoteLats;
+		private double[] remoteLons;
+
+		private double[] out;
+
+		@Setup
+		public void setUp() {
+
+			SplittableRandom random = new SplittableRandom(2);
+
+			localLats = random.doubles(batchSize, -80, 80).toArray();
+			localLons = random.doubles(batchSize, -180, 180).toArray();
+			remoteLats = random.doubles(batchSize, -80, 80).toArray();
+			remoteLons = random.doubles(batchSize, -180, 180).toArray();
+
+			out = new double[batchSize];
+		}
+	}
+
+	@Benchmark
+	public double[] calculateDistances(Batch batch) {
+
+		haversine.calculateDistances(batch.localLats, batch.localLons, batch.remoteLats, batch.remoteLons, batch.out);
+
+		return batch.out;
+	}
+
+	@Benchmark
+	public double[] calculateDistancesParallel(Batch batch) {
+
+		haversine.calculateDistancesParallel(batch.localLats, batch.localLons, batch.remoteLats, batch.remoteLons,
+				batch.out);
+
+		return batch.out;
+	}
+}
@@ -1,20 +1,37 @@
 package uk.co.myzen.atoz.utility;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.function.Supplier;
+
+import uk.co.myzen.atoz.utility.Metrics.Metric;
 
 public class Airtime {
 
-	private static Map<String, Airtime> airtimeInstances = new HashMap<String, Airtime>(15);
+	/**
+	 * Returned by the try methods in place of throwing {@link AirtimeException}
+	 */
+	public static final int INVALID = -1;
 
 	private final SpreadingFactor spreadingFactor;
 	private final Band band;
 	private final BandWidth bandWidth;
 
+	// tenths of mS by payload size, may be shared with a longer table
 	private final int[] airtime;
 
+	private final int tableSize;
+
+	// running maximum of the airtime, so it can be binary searched even where the
+	// tabulated values dip; the airtime table itself when it never decreases
+	private final int[] ceiling;
+
+	// first payload size after each one that has a different airtime
+	private final int[] stepEnd;
+
 	public enum Band {
 
 		EU868, US915,
@@ -31,145 +48,101 @@ public class Airtime {
 		BW125, BW250, BW500
 	};
 
-	// US915
-	// (uplink)
-	private static final int[] data_US915_DR0_BW125_SF10_11 = { 2888, 3297, 3707, };
-
-	private static final int[] data_US915_DR1_BW125_SF9_53 = { 1649, 1853, 2058, 2263, 2468, 2673, 2877, 3082, 3287,
-			3492, 3697, 3901, };
-
-	private static final int[] data_US915_DR2_BW125_SF8_125 = { 824, 927, 1029, 1132, 1234, 1336, 1439, 1541, 1644,
-			1746, 1848, 1951, 2053, 2156, 2258, 2360, 2463, 2565, 2668, 2770, 2872, 2975, 3077, 3180, 3282, 3384, 3487,
-			3589, 3692, 3794, 3896, 3999, };
-
-	private static final int[] data_US915_DR3_BW125_SF7_242 = { 463, 515, 566, 617, 668, 719, 771, 822, 873, 924, 975,
-			1027, 1078, 1129, 1180, 1231, 1283, 1334, 1385, 1436, 1487, 1539, 1590, 1641, 1692, 1743, 1795, 1846, 1897,
-			1948, 1999, 2051, 2102, 2153, 2204, 2255, 2307, 2358, 2409, 2460, 2511, 2563, };
-
-	private static final int[] data_US915_DR4_DR12_BW500_SF8_222 = { 206, 232, 257, 283, 308, 334, 360, 385, 411, 436,
-			462, 488, 513, 539, 564, 590, 616, 641, 667, 692, 718, 744, 769, 795, 820, 846, 872, 897, 923, 948, 974,
-			1000, 1025, 1051, 1076, 1102, 1128, 1153, 1179, 1204, 1230, 1256, 1281, 1307, 1332, 1358, 1384, 1409, 1435,
-			1460, 1486, 1512, 1537, 1563, 1588, 1614, 1640, }; // 904.6Mhz only - actually DR4 and DR12 are the same
-
-	// (downlink)
-	private static final int[] data_US915_DR8_BW500_SF12_33 = { 2888, 3297, 3707, 4116, 4529, 4936, };
+	// every supported combination, built once at class initialisation and indexed by
+	// band, bandwidth and spreading factor ordinals; null for unsupported combinations
+	private static final Airtime[][][] airtimeInstances = createInstances();
 
-	private static final int[] data_US915_DR9_BW500_SF11_109 = { 1444, 1649, 1853, 2058, 2263, 2468, 2673, 2877, 3082,
-			3287, 3492, 3697, 3901, 4106, 4311, 4516, 4721, 4925, 5130, 5335, 5540, };
+	private static Airtime[][][] createInstances() {
 
-	private static final int[] data_US915_DR10_BW500_SF10_222 = { 722, 824, 927, 1029, 1132, 1234, 1336, 1439, 1541,
-			1644, 1746, 1848, 1951, 2053, 2156, 2258, 2360, 2463, 2565, 2668, 2770, 2872, 2975, 3077, 3180, 3282, 3384,
-			3487, 3589, 3692, 3794, 3896, 3999, 4101, 4204, 4036, 4408, 4511, 4613, 4716, 4818, 4920, 5023, 5125, 5228,
-			5330, };
-	private static final int[] data_US915_DR11_BW500_SF9_222 = { 412, 463, 515, 566, 617, 668, 719, 771, 822, 873, 924,
-			975, 1027, 1078, 1129, 1180, 1231, 1283, 1334, 1385, 1436, 1487, 1539, 1590, 1641, 1692, 1743, 1795, 1846,
-			1897, 1948, 1999, 2051, 2102, 2153, 2204, 2255, 2307, 2358, 2409, 2460, 2511, 2563, 2614, 2665, 2716, 2767,
-			2819, 2870, 2921, };
+		Band[] bands = Band.values();
+		BandWidth[] bandWidths = BandWidth.values();
+		SpreadingFactor[] spreadingFactors = SpreadingFactor.values();
 
-	private static final int[] data_US915_DR13_BW500_SF7_222 = { 116, 129, 141, 154, 167, 180, 193, 205, 218, 231, 244,
-			257, 269, 282, 295, 308, 321, 333, 346, 359, 372, 385, 397, 410, 423, 436, 449, 461, 474, 487, 500, 513,
-			525, 538, 551, 564, 577, 589, 602, 615, 628, 641, 653, 666, 679, 692, 705, 717, 730, 743, 756, 769, 781,
-			794, 807, 820, 833, 845, 858, 871, 884, 897, 909, 922, };
+		Airtime[][][] instances = new Airtime[bands.length][bandWidths.length][spreadingFactors.length];
 
-	// EU868
-	private static final int[] data_EU868_DR0_BW125_SF12_51 = { 11551, 13189, 14828, 16466, 18104, 19743, 21381, 23020,
-			24658, 26296, 27935 };
+		for (Band band : bands) {
 
-	private static final int[] data_EU868_DR1_BW125_SF11_51 = { 5775, 6595, 7414, 8233, 9052, 9871, 10691, 11510, 12329,
-			13148, 13967, 14787, 15606 };
+			for (BandWidth bandWidth : bandWidths) {
 
-	private static final int[] data_EU868_DR2_BW125_SF10_51 = { 2888, 3297, 3707, 4116, 4526, 4936, 5345, 5755, 6164,
-			6574, 6984, };
+				for (SpreadingFactor spreadingFactor : spreadingFactors) {
 
-	private static final int[] data_EU868_DR3_BW125_SF9_115 = { 1649, 1853, 2058, 2263, 2468, 2673, 2877, 3082, 3287,
-			3492, 3697, 3901, 4106, 4311, 4516, 4721, 4925, 5130, 5335, 5540, 5745, 5949, 6154, 6359, 6564, 6769 };
+					try {
 
-	private static final int[] data_EU868_DR4_BW125_SF8_222 = { 824, 927, 1029, 1132, 1234, 1336, 1439, 1541, 1644,
-			1746, 1848, 1951, 2053, 2156, 2258, 2360, 2463, 2565, 2668, 2770, 2872, 2975, 3077, 3180, 3282, 3384, 3487,
-			3589, 3692, 3794, 3896, 3999, 4101, 4204, 4306, 4408, 4511, 4613, 4716, 4818, 4920, 5023, 5125, 5228, 5330,
-			5432, 5535, 5637, 5740, 5842, 5944, 6047, 6149, 6252, 6354, 6456, 6559 };
+						instances[band.ordinal()][bandWidth.ordinal()][spreadingFactor.ordinal()] = new Airtime(band,
+								bandWidth, spreadingFactor);
 
-	private static final int[] data_EU868_DR5_BW125_SF7_222 = { 463, 515, 566, 617, 668, 719, 771, 822, 873, 924, 975,
-			1027, 1078, 1129, 1180, 1231, 1283, 1334, 1385, 1436, 1487, 1539, 1590, 1641, 1692, 1743, 1795, 1846, 1897,
-			1948, 1999, 2051, 2102, 2153, 2204, 2255, 2307, 2358, 2409, 2460, 2511, 2563, 2614, 2665, 2716, 2767, 2819,
-			2870, 2921, 2972, 3023, 3075, 3126, 3177, 3228, 3279, 3331, 3382, 3433, 3484, 3535, 3587, 3638, 3689 };
+					} catch (AirtimeException e) {
 
-	private static final int[] data_EU868_DR6_BW250_SF7_222 = { 232, 257, 283, 308, 334, 360, 385, 411, 436, 462, 488,
-			513, 539, 564, 590, 616, 641, 667, 692, 718, 744, 769, 795, 820, 846, 872, 897, 923, 948, 974, 1000, 1025,
-			1051, 1076, 1102, 1128, 1153, 1179, 1204, 1230, 1256, 1281, 1307, 1332, 1358, 1384, 1409, 1435, 1460, 1486,
-			1512, 1537, 1563, 1588, 1614, 1640, 1665, 1691, 1716, 1742, 1768, 1793, 1819, 1844 };
-
-	private static int[] expandTable(int preamble, int countFirst, int countSecond, int maxTableSize, int[] data) {
-
-		int[] result = new int[maxTableSize];
-
-		List<Integer> intArray = new ArrayList<Integer>(maxTableSize);
-
-		int count = preamble;
+						// unsupported combination, reported by getInstance
+					}
+				}
+			}
+		}
 
-		int index = 0;
+		return instances;
+	}
 
-		boolean first = false;
+	/**
+	 * Thrown without a stack trace, since an out of range payload or airtime is a
+	 * routine condition, and with the message only built if it is asked for
+	 */
+	public static class AirtimeException extends Exception {
 
-		try {
+		private static final long serialVersionUID = 1399328105162716430L;
 
-			do {
+		private final Float context;
 
-				Integer value = Integer.valueOf(data[index]);
+		private String message;
 
-				for (int i = 0; i < count; i++) {
+		private transient Supplier<String> messageBuilder;
 
-					if (intArray.size() >= maxTableSize) {
+		public AirtimeException(String message, Float context) {
 
-						return result;
-					}
+			super(null, null, false, false);
 
-					intArray.add(value);
-				}
+			this.message = message;
+			this.context = context;
+		}
 
-				first = !first;
+		AirtimeException(Supplier<String> messageBuilder, Float context) {
 
-				count = first ? countFirst : countSecond;
+			super(null, null, false, false);
 
-				index++;
+			this.messageBuilder = messageBuilder;
+			this.context = context;
+		}
 
-			} while (index < data.length);
+		@Override
+		public String getMessage() {
 
-			return result;
+			Supplier<String> builder = messageBuilder;
 
-		} finally {
+			if (null != builder) {
 
-			for (int i = 0; i < intArray.size(); i++) {
+				message = builder.get();
 
-				result[i] = intArray.get(i);
+				messageBuilder = null;
 			}
 
+			return message;
 		}
 
-	}
-
-	public static class AirtimeException extends Exception {
-
-		private static final long serialVersionUID = 1399328105162716430L;
-
-		private final Float context;
-
-		public AirtimeException(String message, Float context) {
-
-			super(message);
+		public Float getContext() {
 
-			this.context = context;
+			return context;
 		}
 
-		public Float getContext() {
+		private void writeObject(ObjectOutputStream out) throws IOException {
 
-			return context;
+			getMessage();
+
+			out.defaultWriteObject();
 		}
 	}
 
 	public static Airtime getInstance(Band band, int bw, int sf) throws AirtimeException {
 
-		Airtime instance = null;
+		Metrics.increment(Metric.AIRTIME_GET_INSTANCE);
 
 		SpreadingFactor enumSpreadingFactor;
 		BandWidth enumBandWidth;
@@ -188,6 +161,8 @@ public class Airtime {
 
 		} else {
 
+			Metrics.increment(Metric.AIRTIME_INSTANCE_REJECTED);
+
 			throw new AirtimeException("Invalid BW " + bw, -1f);
 		}
 
@@ -217,20 +192,19 @@ public class Airtime {
 
 			break;
 		default:
+			Metrics.increment(Metric.AIRTIME_INSTANCE_REJECTED);
+
 			throw new AirtimeException("Invalid SF " + sf, -1f);
 		}
 
-		String key = band.name() + "_" + enumBandWidth.name() + "_" + enumSpreadingFactor.name();
+		Airtime instance = airtimeInstances[band.ordinal()][enumBandWidth.ordinal()][enumSpreadingFactor.ordinal()];
 
-		if (airtimeInstances.containsKey(key)) {
+		if (null == instance) {
 
-			instance = airtimeInstances.get(key);
+			Metrics.increment(Metric.AIRTIME_INSTANCE_REJECTED);
 
-		} else {
-
-			instance = new Airtime(band, enumBandWidth, enumSpreadingFactor);
-
-			airtimeInstances.put(key, instance);
+			throw new AirtimeException("Unsupported combination: BandWidth " + enumBandWidth + " SpreadingFactor "
+					+ enumSpreadingFactor + " for " + band, -1f);
 		}
 
 		return instance;
@@ -242,220 +216,265 @@ public class Airtime {
 		this.band = band;
 		this.bandWidth = bandWidth;
 
-		switch (band) {
+		airtime = AirtimeTables.table(band, bandWidth, spreadingFactor);
 
-		default:
-			airtime = new int[0];
-			break;
-
-		case US915:
-			if (BandWidth.BW500 == bandWidth) {
+		tableSize = AirtimeTables.size(band, bandWidth, spreadingFactor);
 
-				if (SpreadingFactor.SF12 == spreadingFactor) {
+		if (null == airtime) {
 
-					airtime = expandTable(6, 6, 6, 33, data_US915_DR8_BW500_SF12_33);
-					break;
-				}
+			throw new AirtimeException("Unsupported combination: BandWidth " + bandWidth + " SpreadingFactor "
+					+ spreadingFactor + " for " + band, -1f);
+		}
 
-				if (SpreadingFactor.SF11 == spreadingFactor) {
+		int[] max = new int[tableSize];
 
-					airtime = expandTable(4, 6, 5, 109, data_US915_DR9_BW500_SF11_109);
-					break;
-				}
+		boolean decreases = false;
 
-				if (SpreadingFactor.SF10 == spreadingFactor) {
+		for (int i = 0; i < tableSize; i++) {
 
-					airtime = expandTable(2, 5, 5, 222, data_US915_DR10_BW500_SF10_222);
-					break;
-				}
+			max[i] = i > 0 ? Math.max(max[i - 1], airtime[i]) : airtime[i];
 
-				if (SpreadingFactor.SF9 == spreadingFactor) {
+			decreases |= max[i] != airtime[i];
+		}
 
-					airtime = expandTable(5, 4, 5, 222, data_US915_DR11_BW500_SF9_222);
-					break;
-				}
+		ceiling = decreases ? max : airtime;
 
-				if (SpreadingFactor.SF8 == spreadingFactor) {
+		stepEnd = new int[tableSize];
 
-					airtime = expandTable(2, 4, 4, 222, data_US915_DR4_DR12_BW500_SF8_222);
-					break;
-				}
+		for (int i = tableSize - 1; i >= 0; i--) {
 
-				if (SpreadingFactor.SF7 == spreadingFactor) {
+			stepEnd[i] = i + 1 < tableSize && airtime[i + 1] == airtime[i] ? stepEnd[i + 1] : i + 1;
+		}
+	}
 
-					airtime = expandTable(3, 4, 3, 222, data_US915_DR13_BW500_SF7_222);
-					break;
-				}
+	/**
+	 * Every supported combination that can carry the payload within the airtime,
+	 * quickest first
+	 */
+	public static List<Airtime> getInstancesWithin(int payloadSize, float msAirtime) {
 
-			} else if (BandWidth.BW125 == bandWidth) {
+		return getInstancesWithin(null, payloadSize, msAirtime);
+	}
 
-				if (SpreadingFactor.SF10 == spreadingFactor) {
+	/**
+	 * @param band null for all bands
+	 */
+	public static List<Airtime> getInstancesWithin(Band band, int payloadSize, float msAirtime) {
 
-					airtime = expandTable(2, 5, 5, 11, data_US915_DR0_BW125_SF10_11);
-					break;
-				}
+		int tableValue = (int) (10 * msAirtime);
 
-				if (SpreadingFactor.SF9 == spreadingFactor) {
+		List<Airtime> result = new ArrayList<Airtime>();
 
-					airtime = expandTable(5, 4, 5, 53, data_US915_DR1_BW125_SF9_53);
-					break;
-				}
+		for (Airtime[][] bandInstances : airtimeInstances) {
 
-				if (SpreadingFactor.SF8 == spreadingFactor) {
+			for (Airtime[] bandWidthInstances : bandInstances) {
 
-					airtime = expandTable(2, 4, 4, 125, data_US915_DR2_BW125_SF8_125);
-					break;
-				}
+				for (Airtime instance : bandWidthInstances) {
 
-				if (SpreadingFactor.SF7 == spreadingFactor) {
+					if (null != instance && (null == band || band == instance.band) && payloadSize >= 0
+							&& payloadSize < instance.tableSize && instance.airtime[payloadSize] <= tableValue) {
 
-					airtime = expandTable(3, 4, 3, 242, data_US915_DR3_BW125_SF7_242);
-					break;
+						result.add(instance);
+					}
 				}
 			}
+		}
 
-			airtime = new int[0];
-			break;
+		// stable, so equal airtimes stay in band, bandwidth and spreading factor order
+		result.sort(Comparator.comparingInt(instance -> instance.airtime[payloadSize]));
 
-		case EU868:
+		return result;
+	}
 
-			if (BandWidth.BW250 == bandWidth) {
+	public BandWidth getBandWidth() {
 
-				if (SpreadingFactor.SF7 == spreadingFactor) {
+		return bandWidth;
+	}
 
-					airtime = expandTable(3, 4, 3, 223, data_EU868_DR6_BW250_SF7_222);
-					break;
-				}
+	public Band getBand() {
 
-			} else if (BandWidth.BW125 == bandWidth) {
+		return band;
+	}
 
-				if (SpreadingFactor.SF7 == spreadingFactor) {
+	public SpreadingFactor getSpreadingFactor() {
 
-					airtime = expandTable(3, 4, 3, 223, data_EU868_DR5_BW125_SF7_222); // 0
-					break;
-				}
+		return spreadingFactor;
+	}
 
-				if (SpreadingFactor.SF8 == spreadingFactor) {
+	public float msAirtimeEstimate(int payloadSize) throws AirtimeException {
 
-					airtime = expandTable(2, 4, 4, 223, data_EU868_DR4_BW125_SF8_222);
-					break;
-				}
+		Metrics.increment(Metric.AIRTIME_ESTIMATE);
 
-				if (SpreadingFactor.SF9 == spreadingFactor) {
+		checkPayloadSize(payloadSize);
 
-					airtime = expandTable(5, 4, 5, 116, data_EU868_DR3_BW125_SF9_115);
-					break;
-				}
+		return airtime(payloadSize);
+	}
 
-				if (SpreadingFactor.SF10 == spreadingFactor) {
+	/**
+	 * @return the tabulated airtime in tenths of a millisecond
+	 */
+	public int tenthsMsAirtimeEstimate(int payloadSize) throws AirtimeException {
 
-					airtime = expandTable(2, 5, 5, 52, data_EU868_DR2_BW125_SF10_51);
-					break;
-				}
+		Metrics.increment(Metric.AIRTIME_ESTIMATE);
 
-				if (SpreadingFactor.SF11 == spreadingFactor) {
+		checkPayloadSize(payloadSize);
 
-					airtime = expandTable(1, 5, 4, 52, data_EU868_DR1_BW125_SF11_51);
-					break;
-				}
+		return airtime[payloadSize];
+	}
 
-				if (SpreadingFactor.SF12 == spreadingFactor) {
+	/**
+	 * Fills msAirtimes with the airtime of each of the payload sizes
+	 * 
+	 * @throws AirtimeException for the first payload size out of range, with
+	 *                          msAirtimes filled up to that point
+	 */
+	public void msAirtimeEstimates(int[] payloadSizes, float[] msAirtimes) throws AirtimeException {
 
-					airtime = expandTable(3, 5, 5, 52, data_EU868_DR0_BW125_SF12_51);
-					break;
-				}
-			}
+		if (msAirtimes.length < payloadSizes.length) {
 
-			airtime = new int[0];
-			break;
+			throw new IllegalArgumentException(
+					"Output length " + msAirtimes.length + " is less than input length " + payloadSizes.length);
 		}
 
-		if (0 == airtime.length) {
+		for (int i = 0; i < payloadSizes.length; i++) {
 
-			throw new AirtimeException("Unsupported combination: BandWidth " + bandWidth + " SpreadingFactor "
-					+ spreadingFactor + " for " + band, -1f);
+			int payloadSize = payloadSizes[i];
+
+			Metrics.increment(Metric.AIRTIME_ESTIMATE);
+
+			checkPayloadSize(payloadSize);
+
+			msAirtimes[i] = airtime(payloadSize);
 		}
 	}
 
-	public BandWidth getBandWidth() {
+	/**
+	 * As {@link #msAirtimeEstimate(int)} without throwing
+	 * 
+	 * @return {@value #INVALID} when the payload size is out of range
+	 */
+	public float tryMsAirtimeEstimate(int payloadSize) {
 
-		return bandWidth;
+		Metrics.increment(Metric.AIRTIME_ESTIMATE);
+
+		return isValidPayloadSize(payloadSize) ? airtime(payloadSize) : INVALID;
 	}
 
-	public Band getBand() {
+	/**
+	 * As {@link #tenthsMsAirtimeEstimate(int)} without throwing
+	 * 
+	 * @return {@value #INVALID} when the payload size is out of range
+	 */
+	public int tryTenthsMsAirtimeEstimate(int payloadSize) {
 
-		return band;
+		Metrics.increment(Metric.AIRTIME_ESTIMATE);
+
+		return isValidPayloadSize(payloadSize) ? airtime[payloadSize] : INVALID;
 	}
 
-	public SpreadingFactor getSpreadingFactor() {
+	public boolean isValidPayloadSize(int payloadSize) {
 
-		return spreadingFactor;
+		return payloadSize <= tableSize - 1 && payloadSize >= 0;
 	}
 
-	public float msAirtimeEstimate(int payloadSize) throws AirtimeException {
+	private void checkPayloadSize(int payloadSize) throws AirtimeException {
 
-		if (payloadSize > airtime.length - 1 || payloadSize < 0) {
+		if (!isValidPayloadSize(payloadSize)) {
 
-			throw new AirtimeException("Invalid payload size " + payloadSize + " for " + band + " " + bandWidth + " "
-					+ spreadingFactor + " Needs to be in range 0 to " + (airtime.length - 1),
-					airtime(airtime.length - 1));
-		}
+			Metrics.increment(Metric.AIRTIME_PAYLOAD_REJECTED);
 
-		return airtime(payloadSize);
+			throw new AirtimeException(() -> "Invalid payload size " + payloadSize + " for " + band + " " + bandWidth
+					+ " " + spreadingFactor + " Needs to be in range 0 to " + (tableSize - 1), getMaxAirtime());
+		}
 	}
 
 	private float airtime(int payloadSize) {
 
-		String value = String.valueOf(airtime[payloadSize]);
+		// the division is correctly rounded so gives the same float as parsing the
+		// tenths with a decimal point inserted
+		return airtime[payloadSize] / 10f;
+	}
+
+	public int getMaximumPayloadSize() {
 
-		String value1dp = value.substring(0, value.length() - 1) + "." + value.substring(value.length() - 1);
+		return tableSize - 1;
+	}
 
-		Float result = Float.valueOf(value1dp);
+	/**
+	 * @return the airtime of the largest payload, carried as the context of an
+	 *         {@link AirtimeException} for an out of range payload or airtime
+	 */
+	public float getMaxAirtime() {
 
-		return result.floatValue();
+		return airtime(tableSize - 1);
 	}
 
-	public int getMaximumPayloadSize() {
+	public int getTenthsMsMaxAirtime() {
 
-		return airtime.length - 1;
+		return airtime[tableSize - 1];
 	}
 
 	public int getMinPayloadSizeForAirtime(float msAirtime) {
 
-		int tableValue = Float.valueOf(10 * msAirtime).intValue();
+		int tableValue = (int) (10 * msAirtime);
 
-		int index = 0;
+		// first payload size whose airtime is at least the table value
+		int low = 0;
+		int high = tableSize;
 
-		for (; index < airtime.length; index++) {
+		while (low < high) {
 
-			if (tableValue <= airtime[index]) {
+			int middle = (low + high) >>> 1;
 
-				break;
+			if (ceiling[middle] < tableValue) {
+
+				low = middle + 1;
+
+			} else {
+
+				high = middle;
 			}
 		}
 
-		return index;
+		return low;
 	}
 
 	public int getMaxPayloadSizeForAirtime(float msAirtime) throws AirtimeException {
 
-		int index = getMinPayloadSizeForAirtime(msAirtime);
+		int index = tryMaxPayloadSizeForAirtime(msAirtime);
+
+		if (INVALID == index) {
+
+			Metrics.increment(Metric.AIRTIME_AIRTIME_REJECTED);
+
+			float maxAirtime = getMaxAirtime();
 
-		int time = airtime[index];
+			throw new AirtimeException(() -> "Invalid airtime size " + msAirtime + " for " + band + " " + bandWidth
+					+ " " + spreadingFactor + " The maximum allowed airtime is " + maxAirtime + " mS", maxAirtime);
+		}
+
+		return index;
+	}
 
-		do {
+	/**
+	 * As {@link #getMaxPayloadSizeForAirtime(float)} without throwing
+	 * 
+	 * @return {@value #INVALID} when the airtime reaches the last step of the
+	 *         table, see {@link #getMaxAirtime()}
+	 */
+	public int tryMaxPayloadSizeForAirtime(float msAirtime) {
 
-			index++;
+		int index = getMinPayloadSizeForAirtime(msAirtime);
 
-			if (index == airtime.length) {
+		if (index < tableSize) {
 
-				float maxAirtime = airtime(airtime.length - 1);
+			index = stepEnd[index];
+		}
 
-				throw new AirtimeException("Invalid airtime size " + msAirtime + " for " + band + " " + bandWidth + " "
-						+ spreadingFactor + " The maximum allowed airtime is " + maxAirtime + " mS", maxAirtime);
-			}
+		if (index == tableSize) {
 
-		} while (time == airtime[index]);
+			return INVALID;
+		}
 
 		return index;
 	}
@@ -0,0 +1,147 @@
+// Generated by test/uk/co/myzen/atoz/utility/AirtimeTablesGenerator.java - do not edit
+package uk.co.myzen.atoz.utility;
+
+import uk.co.myzen.atoz.utility.Airtime.Band;
+import uk.co.myzen.atoz.utility.Airtime.BandWidth;
+import uk.co.myzen.atoz.utility.Airtime.SpreadingFactor;
+
+/**
+ * @author howard
+ *
+ *         Airtime tables in tenths of a millisecond indexed by payload
+ *         size. Each backing table is a String of (run length, change)
+ *         char pairs decoded once at class initialisation, and a table
+ *         that is a prefix of another shares its backing array.
+ *
+ */
+final class AirtimeTables {
+
+	private static final String[] ENCODED = {
+
+			// US915 BW125 SF7 (242), EU868 BW125 SF7 (223)
+			"\003\u01cf\0044\0033\0043\0033\0043\0034\0043\0033\0043\0033\0044\0033\0043\0033\0043\0034\0043\0033\0043\0033\0044\0033\0043\0033\0043\0034\0043\0033\0043\0033\0044\0033\0043\0033\0043\0034\0043\0033\0043\0033\0044\0033\0043\0033\0043\0034\0043\0033\0043\0033\0044\0033\0043\0033\0043\0034\0043\0033\0043\0033\0044\0033\0043\0033\0043\0034\0043\0033\0013",
+
+			// EU868 BW250 SF7 (223)
+			"\003\u00e8\004\031\003\032\004\031\003\032\004\032\003\031\004\032\003\031\004\032\003\032\004\031\003\032\004\031\003\032\004\032\003\031\004\032\003\031\004\032\003\032\004\031\003\032\004\031\003\032\004\032\003\031\004\032\003\031\004\032\003\032\004\031\003\032\004\031\003\032\004\032\003\031\004\032\003\031\004\032\003\032\004\031\003\032\004\031\003\032\004\032\003\031\004\032\003\031\004\032\003\032\004\031\003\032\004\031\003\032\004\032\003\031\004\032\003\031\004\032\003\032\004\031\003\032\003\031",
+
+			// US915 BW125 SF8 (125), EU868 BW125 SF8 (223)
+			"\002\u0338\004g\004f\004g\004f\004f\004g\004f\004g\004f\004f\004g\004f\004g\004f\004f\004g\004f\004g\004f\004f\004g\004f\004g\004f\004f\004g\004f\004g\004f\004f\004g\004f\004g\004f\004f\004g\004f\004g\004f\004f\004g\004f\004g\004f\004f\004g\004f\004g\004f\004f\004g\004f\004g\004f\004f\001g",
+
+			// US915 BW500 SF10 (222)
+			"\002\u02d2\005f\005g\005f\005g\005f\005f\005g\005f\005g\005f\005f\005g\005f\005g\005f\005f\005g\005f\005g\005f\005f\005g\005f\005g\005f\005f\005g\005f\005g\005f\005f\005g\005f\005g\005f\005f\005g\005f\005g\005f\005f\005g\005f\005g",
+
+			// US915 BW500 SF9 (222)
+			"\005\u019c\0043\0054\0043\0053\0043\0053\0044\0053\0043\0053\0043\0054\0043\0053\0043\0053\0044\0053\0043\0053\0043\0054\0043\0053\0043\0053\0044\0053\0043\0053\0043\0054\0043\0053\0043\0053\0044\0053\0043\0053\0043\0054\0043\0053\0043\0053\0044\0053\0013",
+
+			// US915 BW500 SF8 (222)
+			"\002\u00ce\004\032\004\031\004\032\004\031\004\032\004\032\004\031\004\032\004\031\004\032\004\032\004\031\004\032\004\031\004\032\004\032\004\031\004\032\004\031\004\032\004\032\004\031\004\032\004\031\004\032\004\032\004\031\004\032\004\031\004\032\004\032\004\031\004\032\004\031\004\032\004\032\004\031\004\032\004\031\004\032\004\032\004\031\004\032\004\031\004\032\004\032\004\031\004\032\004\031\004\032\004\032\004\031\004\032\004\031\004\032",
+
+			// US915 BW500 SF7 (222)
+			"\003t\004\015\003\014\004\015\003\015\004\015\003\015\004\014\003\015\004\015\003\015\004\015\003\014\004\015\003\015\004\015\003\015\004\014\003\015\004\015\003\015\004\015\003\014\004\015\003\015\004\015\003\015\004\014\003\015\004\015\003\015\004\015\003\014\004\015\003\015\004\015\003\015\004\014\003\015\004\015\003\015\004\015\003\014\004\015\003\015\004\015\003\015\004\014\003\015\004\015\003\015\004\015\003\014\004\015\003\015\004\015\003\015\004\014\003\015\004\015\003\015\004\015\003\014\002\015",
+
+			// US915 BW125 SF9 (53), EU868 BW125 SF9 (116)
+			"\005\u0671\004\u00cc\005\u00cd\004\u00cd\005\u00cd\004\u00cd\005\u00cc\004\u00cd\005\u00cd\004\u00cd\005\u00cd\004\u00cc\005\u00cd\004\u00cd\005\u00cd\004\u00cd\005\u00cc\004\u00cd\005\u00cd\004\u00cd\005\u00cd\004\u00cc\005\u00cd\004\u00cd\005\u00cd\003\u00cd",
+
+			// US915 BW500 SF11 (109)
+			"\004\u05a4\006\u00cd\005\u00cc\006\u00cd\005\u00cd\006\u00cd\005\u00cd\006\u00cc\005\u00cd\006\u00cd\005\u00cd\006\u00cd\005\u00cc\006\u00cd\005\u00cd\006\u00cd\005\u00cd\006\u00cc\005\u00cd\006\u00cd",
+
+			// US915 BW125 SF10 (11), EU868 BW125 SF10 (52)
+			"\002\u0b48\005\u0199\005\u019a\005\u0199\005\u019a\005\u019a\005\u0199\005\u019a\005\u0199\005\u019a\005\u019a",
+
+			// EU868 BW125 SF11 (52)
+			"\001\u168f\005\u0334\004\u0333\005\u0333\004\u0333\005\u0333\004\u0334\005\u0333\004\u0333\005\u0333\004\u0333\005\u0334\001\u0333",
+
+			// EU868 BW125 SF12 (52)
+			"\003\u2d1f\005\u0666\005\u0667\005\u0666\005\u0666\005\u0667\005\u0666\005\u0667\005\u0666\005\u0666\004\u0667",
+
+			// US915 BW500 SF12 (33)
+			"\006\u0b48\006\u0199\006\u019a\006\u0199\006\u019a\003\u019a",
+
+	};
+
+	// [band][bandwidth][spreading factor] ordinals, -1 when unsupported
+	private static final int[][][] BACKING = {
+			{ { 0, 2, 7, 9, 10, 11 }, { 1, -1, -1, -1, -1, -1 }, { -1, -1, -1, -1, -1, -1 }, },
+			{ { 0, 2, 7, 9, -1, -1 }, { -1, -1, -1, -1, -1, -1 }, { 6, 5, 4, 3, 8, 12 }, }, };
+
+	private static final int[][][] SIZE = {
+			{ { 223, 223, 116, 52, 52, 52 }, { 223, 0, 0, 0, 0, 0 }, { 0, 0, 0, 0, 0, 0 }, },
+			{ { 242, 125, 53, 11, 0, 0 }, { 0, 0, 0, 0, 0, 0 }, { 222, 222, 222, 222, 109, 33 }, }, };
+
+	private static final int[][] TABLES = decodeAll();
+
+	private AirtimeTables() {
+	}
+
+	/**
+	 * @return the backing table, possibly longer than {@link #size}, or null when
+	 *         the combination is unsupported
+	 */
+	static int[] table(Band band, BandWidth bandWidth, SpreadingFactor spreadingFactor) {
+
+		int backing = lookup(BACKING, band, bandWidth, spreadingFactor, -1);
+
+		return backing < 0 ? null : TABLES[backing];
+	}
+
+	/**
+	 * @return number of payload sizes in the table, 0 when unsupported
+	 */
+	static int size(Band band, BandWidth bandWidth, SpreadingFactor spreadingFactor) {
+
+		return lookup(SIZE, band, bandWidth, spreadingFactor, 0);
+	}
+
+	private static int lookup(int[][][] values, Band band, BandWidth bandWidth,
+			SpreadingFactor spreadingFactor, int missing) {
+
+		int b = band.ordinal();
+		int bw = bandWidth.ordinal();
+		int sf = spreadingFactor.ordinal();
+
+		// constants added to the enums after generation are unsupported
+		if (b >= values.length || bw >= values[b].length || sf >= values[b][bw].length) {
+
+			return missing;
+		}
+
+		return values[b][bw][sf];
+	}
+
+	private static int[][] decodeAll() {
+
+		int[][] tables = new int[ENCODED.length][];
+
+		for (int t = 0; t < ENCODED.length; t++) {
+
+			String encoded = ENCODED[t];
+
+			int size = 0;
+
+			for (int i = 0; i < encoded.length(); i += 2) {
+
+				size += encoded.charAt(i);
+			}
+
+			int[] table = new int[size];
+
+			int value = 0;
+
+			int index = 0;
+
+			for (int i = 0; i < encoded.length(); i += 2) {
+
+				value += (short) encoded.charAt(i + 1);
+
+				for (int end = index + encoded.charAt(i); index < end; index++) {
+
+					table[index] = value;
+				}
+			}
+
+			tables[t] = table;
+		}
+
+		return tables;
+	}
+}
@@ -0,0 +1,410 @@
+package uk.co.myzen.atoz.utility;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import uk.co.myzen.atoz.utility.Airtime.AirtimeException;
+import uk.co.myzen.atoz.utility.Airtime.Band;
+import uk.co.myzen.atoz.utility.Airtime.BandWidth;
+import uk.co.myzen.atoz.utility.Airtime.SpreadingFactor;
+
+/**
+ * @author howard
+ *
+ *         Monte Carlo estimate of how many devices one gateway can serve. Each
+ *         simulated device follows one of a mix of {@link Traffic} classes,
+ *         sending frames of a fixed payload as a Poisson process on a randomly
+ *         chosen channel, each frame's time on air coming from {@link Airtime}.
+ *         A device does not start a frame while still sending the last, so each
+ *         gap between its starts is at least the frame's airtime. Frames
+ *         collide when they overlap in time on the same channel of the same
+ *         band with the same bandwidth and spreading factor; other spreading
+ *         factors are treated as orthogonal. A frame survives a collision when
+ *         it is received at least the capture threshold stronger than every
+ *         frame overlapping it, received powers being spread uniformly over a
+ *         range of dB per device.
+ *
+ *         Frames are kept as packed long keys (start time and device) bucketed
+ *         by channel with a counting sort and sorted by start, so overlaps are
+ *         found in one forward sweep. Trials are independent and run in
+ *         parallel on the common fork-join pool, each with its own random
+ *         generator split from the seed before any run, so results do not depend
+ *         on the number of cores.
+ *
+ */
+public class CapacitySimulator {
+
+	public static final int DEFAULT_CHANNELS = 8;
+
+	public static final double DEFAULT_CAPTURE_DB = 6;
+
+	public static final double DEFAULT_POWER_SPREAD_DB = 30;
+
+	private static final int DEVICE_BITS = 28;
+
+	private static final long DEVICE_MASK = (1L << DEVICE_BITS) - 1;
+
+	private static final long MAX_TENTHS_DURATION = 1L << (63 - DEVICE_BITS);
+
+	private static final int BANDS = Band.values().length;
+
+	private static final int BANDWIDTHS = BandWidth.values().length;
+
+	private static final int SPREADING_FACTORS = SpreadingFactor.values().length;
+
+	private static final int RADIOS = BANDS * BANDWIDTHS * SPREADING_FACTORS;
+
+	/**
+	 * A class of device: what it sends, how often, and its share of the devices
+	 */
+	public static class Traffic {
+
+		private final Airtime airtime;
+
+		private final int payloadSize;
+
+		private final long msInterval;
+
+		private final double weight;
+
+		private final int tenthsMsAirtime;
+
+		/**
+		 * @param msInterval mean time between frames, shorter gaps than the frame's
+		 *                   airtime being stretched to it
+		 * @param weight     relative number of devices of this class
+		 */
+		public Traffic(Airtime airtime, int payloadSize, long msInterval, double weight) throws AirtimeException {
+
+			if (msInterval <= 0 || !(weight > 0)) {
+
+				throw new IllegalArgumentException("Invalid interval " + msInterval + " or weight " + weight);
+			}
+
+			this.airtime = airtime;
+			this.payloadSize = payloadSize;
+			this.msInterval = msInterval;
+			this.weight = weight;
+
+			tenthsMsAirtime = airtime.tenthsMsAirtimeEstimate(payloadSize);
+		}
+
+		public Airtime getAirtime() {
+
+			return airtime;
+		}
+
+		public int getPayloadSize() {
+
+			return payloadSize;
+		}
+
+		public long getMsInterval() {
+
+			return msInterval;
+		}
+
+		public double getWeight() {
+
+			return weight;
+		}
+	}
+
+	/**
+	 * Frames sent and delivered by spreading factor, summed over all trials
+	 */
+	public static class Result {
+
+		private final long[] sent = new long[SPREADING_FACTORS];
+
+		private final long[] delivered = new long[SPREADING_FACTORS];
+
+		private long tenthsMsOnAir;
+
+		private final long tenthsMsCapacity;
+
+		private Result(long tenthsMsCapacity) {
+
+			this.tenthsMsCapacity = tenthsMsCapacity;
+		}
+
+		private void merge(Result other) {
+
+			for (int i = 0; i < SPREADING_FACTORS; i++) {
+
+				sent[i] += other.sent[i];
+				delivered[i] += other.delivered[i];
+			}
+
+			tenthsMsOnAir += other.tenthsMsOnAir;
+		}
+
+		public long getSent(SpreadingFactor sf) {
+
+			return sent[sf.ordinal()];
+		}
+
+		public long getDelivered(SpreadingFactor sf) {
+
+			return delivered[sf.ordinal()];
+		}
+
+		/**
+		 * @return packet delivery ratio, NaN when nothing was sent at this spreading
+		 *         factor
+		 */
+		public double getDeliveryRatio(SpreadingFactor sf) {
+
+			return (double) delivered[sf.ordinal()] / sent[sf.ordinal()];
+		}
+
+		public double getDeliveryRatio() {
+
+			long totalSent = 0;
+			long totalDelivered = 0;
+
+			for (int i = 0; i < SPREADING_FACTORS; i++) {
+
+				totalSent += sent[i];
+				totalDelivered += delivered[i];
+			}
+
+			return (double) totalDelivered / totalSent;
+		}
+
+		/**
+		 * @return mean fraction of each channel's time that was occupied by frames,
+		 *         which may exceed 1 when frames overlap
+		 */
+		public double getChannelOccupancy() {
+
+			return (double) tenthsMsOnAir / tenthsMsCapacity;
+		}
+	}
+
+	private final Traffic[] mix;
+
+	private final double[] cumulativeWeight;
+
+	private final int channels;
+
+	private final double captureDb;
+
+	private final double powerSpreadDb;
+
+	public CapacitySimulator(List<Traffic> mix) {
+
+		this(mix, DEFAULT_CHANNELS, DEFAULT_CAPTURE_DB, DEFAULT_POWER_SPREAD_DB);
+	}
+
+	/**
+	 * @param channels      uplink channels the devices hop between
+	 * @param captureDb     margin by which a frame must exceed each overlapping
+	 *                      frame to be received
+	 * @param powerSpreadDb range of received power across devices
+	 */
+	public CapacitySimulator(List<Traffic> mix, int channels, double captureDb, double powerSpreadDb) {
+
+		if (mix.isEmpty() || channels < 1 || channels > 0xffff || !(powerSpreadDb >= 0)) {
+
+			throw new IllegalArgumentException("Invalid traffic mix, channels " + channels + " or power spread "
+					+ powerSpreadDb);
+		}
+
+		this.mix = mix.toArray(new Traffic[mix.size()]);
+		this.channels = channels;
+		this.captureDb = captureDb;
+		this.powerSpreadDb = powerSpreadDb;
+
+		cumulativeWeight = new double[this.mix.length];
+
+		double total = 0;
+
+		for (int i = 0; i < this.mix.length; i++) {
+
+			total += this.mix[i].weight;
+
+			cumulativeWeight[i] = total;
+		}
+	}
+
+	/**
+	 * @param devices    number of simulated devices
+	 * @param msDuration simulated time per trial
+	 * @param trials     independent repetitions, run in parallel
+	 * @param seed       the same seed gives the same result
+	 */
+	public Result run(int devices, long msDuration, int trials, long seed) {
+
+		if (devices < 0 || devices > DEVICE_MASK || msDuration <= 0 || 10 * msDuration >= MAX_TENTHS_DURATION
+				|| trials < 1) {
+
+			throw new IllegalArgumentException(
+					"Invalid devices " + devices + ", duration " + msDuration + " or trials " + trials);
+		}
+
+		SplittableRandom root = new SplittableRandom(seed);
+
+		List<SplittableRandom> randoms = new ArrayList<SplittableRandom>(trials);
+
+		for (int i = 0; i < trials; i++) {
+
+			randoms.add(root.split());
+		}
+
+		Result[] results = IntStream.range(0, trials).parallel()
+				.mapToObj(i -> trial(devices, 10 * msDuration, randoms.get(i))).toArray(Result[]::new);
+
+		Result total = new Result(10 * msDuration * channels * trials);
+
+		for (Result result : results) {
+
+			total.merge(result);
+		}
+
+		return total;
+	}
+
+	private Result trial(int devices, long tenthsDuration, SplittableRandom random) {
+
+		Result result = new Result(0);
+
+		int[] deviceTraffic = new int[devices];
+
+		float[] devicePower = new float[devices];
+
+		long expectedFrames = 0;
+
+		for (int d = 0; d < devices; d++) {
+
+			double pick = random.nextDouble() * cumulativeWeight[mix.length - 1];
+
+			int t = 0;
+
+			while (t < mix.length - 1 && pick >= cumulativeWeight[t]) {
+
+				t++;
+			}
+
+			deviceTraffic[d] = t;
+			devicePower[d] = (float) (random.nextDouble() * powerSpreadDb);
+
+			expectedFrames += tenthsDuration / (10 * mix[t].msInterval) + 1;
+		}
+
+		// frames as (start << DEVICE_BITS | device) with the channel group alongside
+
+		int groups = channels * RADIOS;
+
+		long[] keys = new long[(int) Math.min(Integer.MAX_VALUE - 8, expectedFrames + expectedFrames / 8 + 16)];
+
+		int[] frameGroup = new int[keys.length];
+
+		int frames = 0;
+
+		for (int d = 0; d < devices; d++) {
+
+			Traffic traffic = mix[deviceTraffic[d]];
+
+			int radio = (traffic.airtime.getBand().ordinal() * BANDWIDTHS + traffic.airtime.getBandWidth().ordinal())
+					* SPREADING_FACTORS + traffic.airtime.getSpreadingFactor().ordinal();
+
+			double tenthsInterval = 10.0 * traffic.msInterval;
+
+			double start = -Math.log(1 - random.nextDouble()) * tenthsInterval;
+
+			while (start < tenthsDuration) {
+
+				if (frames == keys.length) {
+
+					keys = Arrays.copyOf(keys, (int) Math.min(Integer.MAX_VALUE - 8, keys.length * 3L / 2));
+					frameGroup = Arrays.copyOf(frameGroup, keys.length);
+				}
+
+				keys[frames] = (long) start << DEVICE_BITS | d;
+
+				frameGroup[frames] = random.nextInt(channels) * RADIOS + radio;
+
+				frames++;
+
+				start += Math.max(traffic.tenthsMsAirtime, -Math.log(1 - random.nextDouble()) * tenthsInterval);
+			}
+		}
+
+		// counting sort into channel groups then sort each group by start
+
+		int[] groupStart = new int[groups + 1];
+
+		for (int f = 0; f < frames; f++) {
+
+			groupStart[frameGroup[f] + 1]++;
+		}
+
+		for (int g = 0; g < groups; g++) {
+
+			groupStart[g + 1] += groupStart[g];
+		}
+
+		int[] next = Arrays.copyOf(groupStart, groups);
+
+		long[] sorted = new long[frames];
+
+		for (int f = 0; f < frames; f++) {
+
+			sorted[next[frameGroup[f]]++] = keys[f];
+		}
+
+		keys = null;
+		frameGroup = null;
+
+		float[] strongestInterferer = new float[frames];
+
+		Arrays.fill(strongestInterferer, Float.NEGATIVE_INFINITY);
+
+		for (int g = 0; g < groups; g++) {
+
+			Arrays.sort(sorted, groupStart[g], groupStart[g + 1]);
+
+			for (int i = groupStart[g]; i < groupStart[g + 1]; i++) {
+
+				int device = (int) (sorted[i] & DEVICE_MASK);
+
+				long end = (sorted[i] >>> DEVICE_BITS) + mix[deviceTraffic[device]].tenthsMsAirtime;
+
+				float power = devicePower[device];
+
+				// every later frame starting before this one ends overlaps it
+				for (int j = i + 1; j < groupStart[g + 1] && (sorted[j] >>> DEVICE_BITS) < end; j++) {
+
+					float otherPower = devicePower[(int) (sorted[j] & DEVICE_MASK)];
+
+					strongestInterferer[i] = Math.max(strongestInterferer[i], otherPower);
+					strongestInterferer[j] = Math.max(strongestInterferer[j], power);
+				}
+			}
+		}
+
+		for (int i = 0; i < frames; i++) {
+
+			int device = (int) (sorted[i] & DEVICE_MASK);
+
+			Traffic traffic = mix[deviceTraffic[device]];
+
+			int sf = traffic.airtime.getSpreadingFactor().ordinal();
+
+			result.sent[sf]++;
+
+			result.tenthsMsOnAir += traffic.tenthsMsAirtime;
+
+			if (devicePower[device] - strongestInterferer[i] >= captureDb) {
+
+				result.delivered[sf]++;
+			}
+		}
+
+		return result;
+	}
+}
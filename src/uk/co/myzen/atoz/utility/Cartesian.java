@@ -4,6 +4,8 @@ import java.math.RoundingMode;
 import java.text.DecimalFormat;
 import java.util.List;
 
+import uk.co.myzen.atoz.utility.Metrics.Metric;
+
 public class Cartesian {
 
 	private double x;
@@ -22,8 +24,8 @@ public class Cartesian {
 
 	public Cartesian(double latitude, double longitude, int altitude) {
 
-		double radLat = Haversine.toRadians(latitude);
-		double radLong = Haversine.toRadians(longitude);
+		double radLat = Haversine.radians(latitude);
+		double radLong = Haversine.radians(longitude);
 
 		double w = Math.cos(radLat);
 
@@ -48,7 +50,7 @@ public class Cartesian {
 
 		double radLong = Math.atan2(y, x);
 
-		return Haversine.toDegrees(radLong);
+		return Haversine.degrees(radLong);
 	}
 
 	public double toLatitude() {
@@ -57,7 +59,7 @@ public class Cartesian {
 
 		double radLat = Math.atan2(z, w);
 
-		return Haversine.toDegrees(radLat);
+		return Haversine.degrees(radLat);
 	}
 
 	public double getX() {
@@ -86,29 +88,26 @@ public class Cartesian {
 
 	public static Cartesian getMean(List<Cartesian> cartesians) {
 
+		long start = Metrics.start();
+
 		Cartesian result = null;
 
 		int size = null == cartesians ? 0 : cartesians.size();
 
 		if (size > 0) {
 
-			double xSum = 0;
-			double ySum = 0;
-			double zSum = 0;
-
-			int altSum = 0;
+			CartesianAccumulator accumulator = new CartesianAccumulator();
 
 			for (Cartesian c : cartesians) {
 
-				xSum += c.getX();
-				ySum += c.getY();
-				zSum += c.getZ();
-				altSum += c.getAltitude();
+				accumulator.add(c);
 			}
 
-			result = new Cartesian(xSum / size, ySum / size, zSum / size, altSum / size);
+			result = accumulator.getMean();
 		}
 
+		Metrics.stop(Metric.CARTESIAN_MEAN, start);
+
 		return result;
 	}
 
@@ -140,7 +139,7 @@ public class Cartesian {
 		return df.format(number);
 	}
 
-	private static int toRoundInt(int number) {
+	static int toRoundInt(int number) {
 
 		int calc = number * 10 + 5;
 
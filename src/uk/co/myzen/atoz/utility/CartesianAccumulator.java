@@ -0,0 +1,117 @@
+package uk.co.myzen.atoz.utility;
+
+import java.util.stream.Collector;
+
+/**
+ * @author howard
+ *
+ *         Running centroid of {@link Cartesian} points that holds only sums,
+ *         so streams of any length can be averaged without materialising a
+ *         list. The coordinate sums use Neumaier compensated summation and the
+ *         altitude sum is a long, so neither drifts nor overflows on large
+ *         sets. Accumulators can be merged, which lets parallel streams
+ *         combine per-thread partial results through {@link #toMean()}.
+ *
+ *         Not thread safe; use one accumulator per thread and merge.
+ *
+ */
+public class CartesianAccumulator {
+
+	private long count;
+
+	private double xSum;
+	private double ySum;
+	private double zSum;
+
+	// compensation terms holding the low order bits lost from each sum
+	private double xError;
+	private double yError;
+	private double zError;
+
+	private long altSum;
+
+	public CartesianAccumulator() {
+	}
+
+	/**
+	 * @return a collector averaging the points, or null for an empty stream as
+	 *         {@link Cartesian#getMean} does for an empty list
+	 */
+	public static Collector<Cartesian, CartesianAccumulator, Cartesian> toMean() {
+
+		return Collector.of(CartesianAccumulator::new, CartesianAccumulator::add, CartesianAccumulator::merge,
+				CartesianAccumulator::getMean, Collector.Characteristics.UNORDERED);
+	}
+
+	public void add(Cartesian cartesian) {
+
+		add(cartesian.getX(), cartesian.getY(), cartesian.getZ(), cartesian.getAltitude());
+	}
+
+	public void add(double x, double y, double z, long altitude) {
+
+		count++;
+
+		double sum = xSum + x;
+		xError += Math.abs(xSum) >= Math.abs(x) ? (xSum - sum) + x : (x - sum) + xSum;
+		xSum = sum;
+
+		sum = ySum + y;
+		yError += Math.abs(ySum) >= Math.abs(y) ? (ySum - sum) + y : (y - sum) + ySum;
+		ySum = sum;
+
+		sum = zSum + z;
+		zError += Math.abs(zSum) >= Math.abs(z) ? (zSum - sum) + z : (z - sum) + zSum;
+		zSum = sum;
+
+		altSum += altitude;
+	}
+
+	/**
+	 * Folds the other accumulator's sums into this one
+	 *
+	 * @return this
+	 */
+	public CartesianAccumulator merge(CartesianAccumulator other) {
+
+		add(other.xSum, other.ySum, other.zSum, other.altSum);
+
+		xError += other.xError;
+		yError += other.yError;
+		zError += other.zError;
+
+		// add counted the merged sums as one point
+		count += other.count - 1;
+
+		return this;
+	}
+
+	public void clear() {
+
+		count = 0;
+
+		xSum = ySum = zSum = 0;
+		xError = yError = zError = 0;
+
+		altSum = 0;
+	}
+
+	public long getCount() {
+
+		return count;
+	}
+
+	/**
+	 * @return the centroid, or null when nothing has been added
+	 */
+	public Cartesian getMean() {
+
+		if (0 == count) {
+
+			return null;
+		}
+
+		return new Cartesian((xSum + xError) / count, (ySum + yError) / count, (zSum + zError) / count,
+				(int) (altSum / count));
+	}
+}
@@ -0,0 +1,347 @@
+package uk.co.myzen.atoz.utility;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * @author howard
+ *
+ *         Struct-of-arrays store for large numbers of {@link Cartesian} points.
+ *         The x, y, z and altitude columns are primitive buffers, either on the
+ *         heap or off-heap in direct memory, so tens of millions of positions
+ *         cost little more than their raw 28 bytes each and passes over them
+ *         stream through memory rather than chasing object pointers.
+ *
+ *         Conversions to and from latitude/longitude use the same formulae as
+ *         {@link Cartesian} but never create a Cartesian per point.
+ *
+ *         Not thread safe for writes; concurrent readers of a fully loaded
+ *         buffer are fine.
+ *
+ */
+public class CartesianBuffer {
+
+	private final boolean direct;
+
+	private DoubleBuffer x;
+	private DoubleBuffer y;
+	private DoubleBuffer z;
+
+	private IntBuffer altitude;
+
+	private int size;
+
+	public CartesianBuffer(int capacity) {
+
+		this(capacity, false);
+	}
+
+	private CartesianBuffer(int capacity, boolean direct) {
+
+		if (capacity < 0) {
+
+			throw new IllegalArgumentException("Invalid capacity " + capacity);
+		}
+
+		this.direct = direct;
+
+		allocate(capacity);
+	}
+
+	/**
+	 * @return a buffer whose columns are held in direct memory outside the heap
+	 */
+	public static CartesianBuffer allocateDirect(int capacity) {
+
+		return new CartesianBuffer(capacity, true);
+	}
+
+	public boolean isDirect() {
+
+		return direct;
+	}
+
+	public int size() {
+
+		return size;
+	}
+
+	public int capacity() {
+
+		return x.capacity();
+	}
+
+	public void clear() {
+
+		size = 0;
+	}
+
+	/**
+	 * Grows the columns, copying the existing points, so at least capacity points
+	 * fit
+	 */
+	public void ensureCapacity(int capacity) {
+
+		if (capacity <= capacity()) {
+
+			return;
+		}
+
+		DoubleBuffer oldX = x;
+		DoubleBuffer oldY = y;
+		DoubleBuffer oldZ = z;
+		IntBuffer oldAltitude = altitude;
+
+		allocate((int) Math.min(maxCapacity(), Math.max(capacity, 2L * capacity())));
+
+		for (int i = 0; i < size; i++) {
+
+			x.put(i, oldX.get(i));
+			y.put(i, oldY.get(i));
+			z.put(i, oldZ.get(i));
+			altitude.put(i, oldAltitude.get(i));
+		}
+	}
+
+	/**
+	 * @return index of the added point
+	 */
+	public int add(double x, double y, double z, int altitude) {
+
+		ensureCapacity(size + 1);
+
+		set(size, x, y, z, altitude);
+
+		return size++;
+	}
+
+	public int add(Cartesian cartesian) {
+
+		return add(cartesian.getX(), cartesian.getY(), cartesian.getZ(), cartesian.getAltitude());
+	}
+
+	/**
+	 * Adds the unit vector for the location as {@link Cartesian#Cartesian(double, double, int)}
+	 *
+	 * @return index of the added point
+	 */
+	public int addLocation(double latitude, double longitude, int altitude) {
+
+		ensureCapacity(size + 1);
+
+		setLocation(size, latitude, longitude, altitude);
+
+		return size++;
+	}
+
+	/**
+	 * Bulk conversion of latitude/longitude columns to unit vectors appended to
+	 * this buffer
+	 *
+	 * @param altitudes may be null for zero altitude
+	 * @return index of the first added point
+	 */
+	public int addLocations(double[] latitudes, double[] longitudes, int[] altitudes) {
+
+		int length = latitudes.length;
+
+		if (longitudes.length != length || (null != altitudes && altitudes.length != length)) {
+
+			throw new IllegalArgumentException("Location columns differ in length");
+		}
+
+		int first = size;
+
+		ensureCapacity(size + length);
+
+		for (int i = 0; i < length; i++) {
+
+			setLocation(first + i, latitudes[i], longitudes[i], null == altitudes ? 0 : altitudes[i]);
+		}
+
+		size += length;
+
+		return first;
+	}
+
+	public void set(int index, double x, double y, double z, int altitude) {
+
+		this.x.put(index, x);
+		this.y.put(index, y);
+		this.z.put(index, z);
+		this.altitude.put(index, altitude);
+	}
+
+	public void setLocation(int index, double latitude, double longitude, int altitude) {
+
+		double radLat = Haversine.radians(latitude);
+		double radLong = Haversine.radians(longitude);
+
+		double w = Math.cos(radLat);
+
+		set(index, w * Math.cos(radLong), w * Math.sin(radLong), Math.sin(radLat), altitude);
+	}
+
+	public double getX(int index) {
+
+		return x.get(checkIndex(index));
+	}
+
+	public double getY(int index) {
+
+		return y.get(checkIndex(index));
+	}
+
+	public double getZ(int index) {
+
+		return z.get(checkIndex(index));
+	}
+
+	public int getAltitude(int index) {
+
+		return altitude.get(checkIndex(index));
+	}
+
+	/**
+	 * @return a new Cartesian copy of the point
+	 */
+	public Cartesian get(int index) {
+
+		checkIndex(index);
+
+		return new Cartesian(x.get(index), y.get(index), z.get(index), altitude.get(index));
+	}
+
+	public double toLatitude(int index) {
+
+		checkIndex(index);
+
+		double px = x.get(index);
+		double py = y.get(index);
+
+		double w = Math.sqrt((px * px) + (py * py));
+
+		return Haversine.degrees(Math.atan2(z.get(index), w));
+	}
+
+	public double toLongitude(int index) {
+
+		checkIndex(index);
+
+		return Haversine.degrees(Math.atan2(y.get(index), x.get(index)));
+	}
+
+	/**
+	 * Bulk {@link #toLatitude(int)} of points from...to - 1 into latitudes from
+	 * offset
+	 */
+	public void toLatitudes(int from, int to, double[] latitudes, int offset) {
+
+		checkRange(from, to);
+
+		for (int i = from, j = offset; i < to; i++, j++) {
+
+			double px = x.get(i);
+			double py = y.get(i);
+
+			latitudes[j] = Haversine.degrees(Math.atan2(z.get(i), Math.sqrt((px * px) + (py * py))));
+		}
+	}
+
+	/**
+	 * Bulk {@link #toLongitude(int)} of points from...to - 1 into longitudes from
+	 * offset
+	 */
+	public void toLongitudes(int from, int to, double[] longitudes, int offset) {
+
+		checkRange(from, to);
+
+		for (int i = from, j = offset; i < to; i++, j++) {
+
+			longitudes[j] = Haversine.degrees(Math.atan2(y.get(i), x.get(i)));
+		}
+	}
+
+	/**
+	 * Adds points from...to - 1 to the accumulator
+	 */
+	public void accumulate(int from, int to, CartesianAccumulator accumulator) {
+
+		checkRange(from, to);
+
+		for (int i = from; i < to; i++) {
+
+			accumulator.add(x.get(i), y.get(i), z.get(i), altitude.get(i));
+		}
+	}
+
+	/**
+	 * @return centroid of points from...to - 1 as {@link Cartesian#getMean}, null
+	 *         for an empty range
+	 */
+	public Cartesian getMean(int from, int to) {
+
+		CartesianAccumulator accumulator = new CartesianAccumulator();
+
+		accumulate(from, to, accumulator);
+
+		return accumulator.getMean();
+	}
+
+	public Cartesian getMean() {
+
+		return getMean(0, size);
+	}
+
+	private int maxCapacity() {
+
+		// a direct buffer is limited to 2GB of bytes
+		return direct ? Integer.MAX_VALUE / Double.BYTES : Integer.MAX_VALUE - 8;
+	}
+
+	private void allocate(int capacity) {
+
+		if (capacity > maxCapacity()) {
+
+			throw new IllegalArgumentException("Capacity " + capacity + " exceeds " + maxCapacity());
+		}
+
+		if (direct) {
+
+			x = ByteBuffer.allocateDirect(capacity * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+			y = ByteBuffer.allocateDirect(capacity * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+			z = ByteBuffer.allocateDirect(capacity * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+
+			altitude = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder())
+					.asIntBuffer();
+
+		} else {
+
+			x = DoubleBuffer.allocate(capacity);
+			y = DoubleBuffer.allocate(capacity);
+			z = DoubleBuffer.allocate(capacity);
+
+			altitude = IntBuffer.allocate(capacity);
+		}
+	}
+
+	private int checkIndex(int index) {
+
+		if (index < 0 || index >= size) {
+
+			throw new IndexOutOfBoundsException("Index " + index + " size " + size);
+		}
+
+		return index;
+	}
+
+	private void checkRange(int from, int to) {
+
+		if (from < 0 || to > size || from > to) {
+
+			throw new IndexOutOfBoundsException("Range " + from + " to " + to + " size " + size);
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package uk.co.myzen.atoz.utility;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author howard
+ *
+ *         Bulk CSV and GeoJSON export of {@link Cartesian} points to a channel.
+ *         Coordinates are formatted by {@link DecimalWriter} into one reused
+ *         buffer which is drained to the channel whenever it fills, so
+ *         exporting millions of points creates no per-point Strings. The
+ *         altitude is written as {@link Cartesian#toRoundAltitude()} would give
+ *         it.
+ *
+ *         Latitude and longitude are not formatted as
+ *         {@link Cartesian#toRoundLatitude(int)} and
+ *         {@link Cartesian#toRoundLongitude(int)} give them. Those round towards
+ *         positive infinity, drop trailing zeros and count the integer digits
+ *         in the precision. Here every coordinate has exactly the given number
+ *         of decimal places, rounded half away from zero, so 51.50004 and
+ *         -0.12346 to 4 places export as 51.5000 and -0.1235 where
+ *         toRoundLatitude(4) gives 51.5001 and -0.1234.
+ *
+ *         Not thread safe; use one instance per thread.
+ *
+ */
+public class CartesianExport {
+
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+	private static final int MAX_RECORD_BYTES = 256; // comfortably more than the longest record
+
+	private static final byte[] CSV_HEADER = ascii("latitude,longitude,altitude\n");
+
+	private static final byte[] GEOJSON_START = ascii("{\"type\":\"FeatureCollection\",\"features\":[");
+
+	private static final byte[] FEATURE_START = ascii(
+			"{\"type\":\"Feature\",\"properties\":{},\"geometry\":{\"type\":\"Point\",\"coordinates\":[");
+
+	private static final byte[] FEATURE_END = ascii("]}}");
+
+	private static final byte[] GEOJSON_END = ascii("]}\n");
+
+	private final ByteBuffer buffer;
+
+	private final int decimals;
+
+	/**
+	 * @param decimals number of decimal places for latitude and longitude
+	 */
+	public CartesianExport(int decimals) {
+
+		this(decimals, DEFAULT_BUFFER_SIZE);
+	}
+
+	public CartesianExport(int decimals, int bufferSize) {
+
+		if (decimals < 0 || decimals > DecimalWriter.MAX_DECIMALS) {
+
+			throw new IllegalArgumentException("Invalid decimals " + decimals);
+		}
+
+		this.decimals = decimals;
+
+		buffer = ByteBuffer.allocateDirect(Math.max(bufferSize, 2 * MAX_RECORD_BYTES));
+	}
+
+	/**
+	 * Writes a header line then one latitude,longitude,altitude line per point
+	 */
+	public void writeCsv(Iterable<Cartesian> points, WritableByteChannel channel) throws IOException {
+
+		buffer.clear();
+
+		buffer.put(CSV_HEADER);
+
+		for (Cartesian c : points) {
+
+			ensureRoom(channel);
+
+			csvRecord(c.toLatitude(), c.toLongitude(), c.getAltitude());
+		}
+
+		drain(channel);
+	}
+
+	public void writeCsv(CartesianBuffer points, WritableByteChannel channel) throws IOException {
+
+		buffer.clear();
+
+		buffer.put(CSV_HEADER);
+
+		for (int i = 0; i < points.size(); i++) {
+
+			ensureRoom(channel);
+
+			csvRecord(points.toLatitude(i), points.toLongitude(i), points.getAltitude(i));
+		}
+
+		drain(channel);
+	}
+
+	/**
+	 * Writes a FeatureCollection with one Point feature per point, coordinates
+	 * being longitude, latitude and altitude in that order
+	 */
+	public void writeGeoJson(Iterable<Cartesian> points, WritableByteChannel channel) throws IOException {
+
+		buffer.clear();
+
+		buffer.put(GEOJSON_START);
+
+		boolean first = true;
+
+		for (Cartesian c : points) {
+
+			ensureRoom(channel);
+
+			feature(first, c.toLatitude(), c.toLongitude(), c.getAltitude());
+
+			first = false;
+		}
+
+		buffer.put(GEOJSON_END);
+
+		drain(channel);
+	}
+
+	public void writeGeoJson(CartesianBuffer points, WritableByteChannel channel) throws IOException {
+
+		buffer.clear();
+
+		buffer.put(GEOJSON_START);
+
+		for (int i = 0; i < points.size(); i++) {
+
+			ensureRoom(channel);
+
+			feature(0 == i, points.toLatitude(i), points.toLongitude(i), points.getAltitude(i));
+		}
+
+		buffer.put(GEOJSON_END);
+
+		drain(channel);
+	}
+
+	private void csvRecord(double latitude, double longitude, int altitude) {
+
+		DecimalWriter.put(buffer, latitude, decimals).put((byte) ',');
+		DecimalWriter.put(buffer, longitude, decimals).put((byte) ',');
+		DecimalWriter.put(buffer, Cartesian.toRoundInt(altitude)).put((byte) '\n');
+	}
+
+	private void feature(boolean first, double latitude, double longitude, int altitude) {
+
+		if (!first) {
+
+			buffer.put((byte) ',');
+		}
+
+		buffer.put(FEATURE_START);
+
+		DecimalWriter.put(buffer, longitude, decimals).put((byte) ',');
+		DecimalWriter.put(buffer, latitude, decimals).put((byte) ',');
+		DecimalWriter.put(buffer, Cartesian.toRoundInt(altitude));
+
+		buffer.put(FEATURE_END);
+	}
+
+	private void ensureRoom(WritableByteChannel channel) throws IOException {
+
+		if (buffer.remaining() < MAX_RECORD_BYTES) {
+
+			drain(channel);
+
+			buffer.clear();
+		}
+	}
+
+	private void drain(WritableByteChannel channel) throws IOException {
+
+		buffer.flip();
+
+		while (buffer.hasRemaining()) {
+
+			channel.write(buffer);
+		}
+	}
+
+	private static byte[] ascii(String text) {
+
+		return text.getBytes(StandardCharsets.US_ASCII);
+	}
+}
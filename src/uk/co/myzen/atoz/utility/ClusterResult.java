@@ -0,0 +1,106 @@
+package uk.co.myzen.atoz.utility;
+
+/**
+ * @author howard
+ *
+ *         Outcome of clustering the points of a {@link CartesianBuffer} with
+ *         {@link SphericalKMeans} or {@link Dbscan}: a cluster label per point
+ *         and the centroid of each cluster as a unit vector.
+ *
+ */
+public class ClusterResult {
+
+	/**
+	 * Label of a point that belongs to no cluster
+	 */
+	public static final int NOISE = -1;
+
+	private final int[] labels;
+
+	private final CartesianBuffer centroids;
+
+	private final int iterations;
+
+	ClusterResult(int[] labels, CartesianBuffer centroids, int iterations) {
+
+		this.labels = labels;
+		this.centroids = centroids;
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Centroids of each labelled cluster, normalised to unit length
+	 */
+	static CartesianBuffer centroids(CartesianBuffer points, int[] labels, int clusters) {
+
+		double[] sums = new double[clusters * 3];
+
+		for (int i = 0; i < labels.length; i++) {
+
+			int label = labels[i];
+
+			if (NOISE != label) {
+
+				sums[label * 3] += points.getX(i);
+				sums[label * 3 + 1] += points.getY(i);
+				sums[label * 3 + 2] += points.getZ(i);
+			}
+		}
+
+		CartesianBuffer centroids = new CartesianBuffer(clusters);
+
+		for (int c = 0; c < clusters; c++) {
+
+			double x = sums[c * 3];
+			double y = sums[c * 3 + 1];
+			double z = sums[c * 3 + 2];
+
+			double norm = Math.sqrt(x * x + y * y + z * z);
+
+			if (norm > 0) {
+
+				centroids.add(x / norm, y / norm, z / norm, 0);
+
+			} else {
+
+				centroids.add(0, 0, 0, 0);
+			}
+		}
+
+		return centroids;
+	}
+
+	/**
+	 * @return cluster number of the point or {@link #NOISE}
+	 */
+	public int getLabel(int index) {
+
+		return labels[index];
+	}
+
+	/**
+	 * @return the label of every point, shared rather than copied
+	 */
+	public int[] getLabels() {
+
+		return labels;
+	}
+
+	public int getClusterCount() {
+
+		return centroids.size();
+	}
+
+	public CartesianBuffer getCentroids() {
+
+		return centroids;
+	}
+
+	/**
+	 * @return number of refinement passes, 1 for single pass algorithms
+	 */
+	public int getIterations() {
+
+		return iterations;
+	}
+}
@@ -0,0 +1,187 @@
+package uk.co.myzen.atoz.utility;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * @author howard
+ *
+ *         Density based clustering (DBSCAN) of the unit vectors in a
+ *         {@link CartesianBuffer} with a great-circle epsilon. The epsilon is
+ *         converted to the equivalent chord through the unit sphere, which
+ *         selects exactly the same neighbours as comparing
+ *         {@link Haversine#calculateDistance} but needs no trigonometry, and
+ *         neighbour queries go through a {@link UnitVectorGrid} so the work is
+ *         proportional to the number of neighbours rather than O(N^2).
+ *
+ *         Both passes run in parallel on the common fork-join pool: the first
+ *         counts neighbours to find the core points, the second joins
+ *         neighbouring core points with a lock-free union-find and attaches
+ *         each border point to a neighbouring core point's cluster.
+ *
+ */
+public class Dbscan {
+
+	private final double epsilon;
+
+	private final int minPoints;
+
+	private final Haversine haversine;
+
+	/**
+	 * @param epsilon   neighbourhood radius in miles
+	 * @param minPoints neighbours, counting the point itself, that make a core
+	 *                  point
+	 */
+	public Dbscan(double epsilon, int minPoints) {
+
+		this(new Haversine(), epsilon, minPoints);
+	}
+
+	/**
+	 * @param haversine epsilon is in the units of this instance
+	 */
+	public Dbscan(Haversine haversine, double epsilon, int minPoints) {
+
+		if (!(epsilon > 0) || minPoints < 1) {
+
+			throw new IllegalArgumentException("Invalid epsilon " + epsilon + " or minimum points " + minPoints);
+		}
+
+		this.haversine = haversine;
+		this.epsilon = epsilon;
+		this.minPoints = minPoints;
+	}
+
+	public ClusterResult cluster(final CartesianBuffer points) {
+
+		final int size = points.size();
+
+		final UnitVectorGrid grid = new UnitVectorGrid(points,
+				GeoIndex.chord(epsilon / haversine.getMilesEarthRadiusApprox()));
+
+		final boolean[] core = new boolean[size];
+
+		IntStream.range(0, size).parallel().forEach(i -> {
+
+			int[] count = { 0 };
+
+			grid.neighbours(i, other -> count[0]++);
+
+			core[i] = count[0] >= minPoints;
+		});
+
+		final AtomicIntegerArray parent = new AtomicIntegerArray(size);
+
+		for (int i = 0; i < size; i++) {
+
+			parent.set(i, i);
+		}
+
+		final int[] border = new int[size];
+
+		IntStream.range(0, size).parallel().forEach(i -> {
+
+			border[i] = -1;
+
+			if (core[i]) {
+
+				grid.neighbours(i, other -> {
+
+					if (other < i && core[other]) {
+
+						union(parent, i, other);
+					}
+				});
+
+			} else {
+
+				grid.neighbours(i, other -> {
+
+					if (core[other] && border[i] < 0) {
+
+						border[i] = other;
+					}
+				});
+			}
+		});
+
+		// number the clusters by their lowest indexed core point
+
+		int[] labels = new int[size];
+
+		int[] rootLabel = new int[size];
+
+		int clusters = 0;
+
+		for (int i = 0; i < size; i++) {
+
+			if (core[i]) {
+
+				int root = find(parent, i);
+
+				if (root == i) {
+
+					rootLabel[i] = clusters++;
+				}
+
+				labels[i] = rootLabel[root];
+			}
+		}
+
+		for (int i = 0; i < size; i++) {
+
+			if (!core[i]) {
+
+				labels[i] = border[i] < 0 ? ClusterResult.NOISE : labels[border[i]];
+			}
+		}
+
+		return new ClusterResult(labels, ClusterResult.centroids(points, labels, clusters), 1);
+	}
+
+	private static int find(AtomicIntegerArray parent, int x) {
+
+		int p;
+
+		while ((p = parent.get(x)) != x) {
+
+			// path halving, harmless if another thread got there first
+			int grandparent = parent.get(p);
+
+			parent.compareAndSet(x, p, grandparent);
+
+			x = p;
+		}
+
+		return x;
+	}
+
+	private static void union(AtomicIntegerArray parent, int a, int b) {
+
+		while (true) {
+
+			a = find(parent, a);
+			b = find(parent, b);
+
+			if (a == b) {
+
+				return;
+			}
+
+			// always hang the higher root under the lower so the lowest index ends up
+			// as the root of each cluster
+			if (a < b) {
+
+				int t = a;
+				a = b;
+				b = t;
+			}
+
+			if (parent.compareAndSet(a, a, b)) {
+
+				return;
+			}
+		}
+	}
+}
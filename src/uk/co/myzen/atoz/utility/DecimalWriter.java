@@ -0,0 +1,220 @@
+package uk.co.myzen.atoz.utility;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * @author howard
+ *
+ *         Fixed precision decimal formatting straight into a
+ *         {@link StringBuilder}, {@link CharBuffer} or ASCII {@link ByteBuffer}
+ *         without {@link java.text.DecimalFormat} or intermediate Strings. The
+ *         value is rounded half away from zero to the requested number of
+ *         decimal places and trailing zeros are kept, e.g. 51.5 to 4 places is
+ *         51.5000. This differs from the ceiling rounding of
+ *         {@link Cartesian#toRoundLatitude(int)}, see {@link CartesianExport}.
+ *
+ *         Values too large to scale exactly into a long, NaN and infinities
+ *         fall back to {@link Double#toString(double)}.
+ *
+ */
+public final class DecimalWriter {
+
+	public static final int MAX_DECIMALS = 15;
+
+	private static final long[] POW10 = new long[19];
+
+	static {
+
+		POW10[0] = 1;
+
+		for (int i = 1; i < POW10.length; i++) {
+
+			POW10[i] = POW10[i - 1] * 10;
+		}
+	}
+
+	private static final double LIMIT = 1L << 53; // largest scaled value held exactly
+
+	private DecimalWriter() {
+	}
+
+	public static StringBuilder append(StringBuilder sb, double value, int decimals) {
+
+		long scaled = scale(value, decimals);
+
+		if (scaled < 0) {
+
+			return sb.append(value);
+		}
+
+		if (value < 0 && scaled > 0) {
+
+			sb.append('-');
+		}
+
+		long pow = POW10[decimals];
+
+		sb.append(scaled / pow);
+
+		if (decimals > 0) {
+
+			sb.append('.');
+
+			long fraction = scaled % pow;
+
+			for (int width = digits(fraction); width < decimals; width++) {
+
+				sb.append('0');
+			}
+
+			sb.append(fraction);
+		}
+
+		return sb;
+	}
+
+	public static CharBuffer put(CharBuffer buffer, double value, int decimals) {
+
+		long scaled = scale(value, decimals);
+
+		if (scaled < 0) {
+
+			return buffer.put(Double.toString(value));
+		}
+
+		if (value < 0 && scaled > 0) {
+
+			buffer.put('-');
+		}
+
+		long pow = POW10[decimals];
+
+		long whole = scaled / pow;
+
+		for (int i = digits(whole) - 1; i >= 0; i--) {
+
+			buffer.put((char) ('0' + (whole / POW10[i]) % 10));
+		}
+
+		if (decimals > 0) {
+
+			buffer.put('.');
+
+			long fraction = scaled % pow;
+
+			for (int i = decimals - 1; i >= 0; i--) {
+
+				buffer.put((char) ('0' + (fraction / POW10[i]) % 10));
+			}
+		}
+
+		return buffer;
+	}
+
+	/**
+	 * Writes the value as ASCII bytes
+	 */
+	public static ByteBuffer put(ByteBuffer buffer, double value, int decimals) {
+
+		long scaled = scale(value, decimals);
+
+		if (scaled < 0) {
+
+			String text = Double.toString(value);
+
+			for (int i = 0; i < text.length(); i++) {
+
+				buffer.put((byte) text.charAt(i));
+			}
+
+			return buffer;
+		}
+
+		if (value < 0 && scaled > 0) {
+
+			buffer.put((byte) '-');
+		}
+
+		long pow = POW10[decimals];
+
+		long whole = scaled / pow;
+
+		for (int i = digits(whole) - 1; i >= 0; i--) {
+
+			buffer.put((byte) ('0' + (whole / POW10[i]) % 10));
+		}
+
+		if (decimals > 0) {
+
+			buffer.put((byte) '.');
+
+			long fraction = scaled % pow;
+
+			for (int i = decimals - 1; i >= 0; i--) {
+
+				buffer.put((byte) ('0' + (fraction / POW10[i]) % 10));
+			}
+		}
+
+		return buffer;
+	}
+
+	/**
+	 * Writes the integer as ASCII bytes
+	 */
+	public static ByteBuffer put(ByteBuffer buffer, long value) {
+
+		if (value < 0) {
+
+			if (Long.MIN_VALUE == value) {
+
+				return put(buffer, (double) value, 0);
+			}
+
+			buffer.put((byte) '-');
+
+			value = -value;
+		}
+
+		for (int i = digits(value) - 1; i >= 0; i--) {
+
+			buffer.put((byte) ('0' + (value / POW10[i]) % 10));
+		}
+
+		return buffer;
+	}
+
+	/**
+	 * @return |value| scaled by 10^decimals and rounded, or -1 when it cannot be
+	 *         formatted exactly
+	 */
+	private static long scale(double value, int decimals) {
+
+		if (decimals < 0 || decimals > MAX_DECIMALS) {
+
+			throw new IllegalArgumentException("Invalid decimals " + decimals);
+		}
+
+		double scaled = Math.abs(value) * POW10[decimals];
+
+		if (!(scaled < LIMIT)) { // also catches NaN
+
+			return -1;
+		}
+
+		return Math.round(scaled);
+	}
+
+	private static int digits(long value) {
+
+		int digits = 1;
+
+		while (digits < POW10.length && value >= POW10[digits]) {
+
+			digits++;
+		}
+
+		return digits;
+	}
+}
@@ -0,0 +1,16 @@
+package uk.co.myzen.atoz.utility;
+
+/**
+ * @author howard
+ *
+ *         Common signature for the exact and approximate great-circle distance
+ *         modes created by {@link DistanceFunctions}. Arguments are degrees and
+ *         the result is in the units of the {@link Haversine} instance the
+ *         function was created from.
+ *
+ */
+@FunctionalInterface
+public interface DistanceFunction {
+
+	double distance(double localLat, double localLon, double remoteLat, double remoteLon);
+}
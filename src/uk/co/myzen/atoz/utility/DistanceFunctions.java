@@ -0,0 +1,239 @@
+package uk.co.myzen.atoz.utility;
+
+/**
+ * @author howard
+ *
+ *         Factory for {@link DistanceFunction} modes that trade accuracy for
+ *         throughput, for use when pre-filtering or ranking candidates before
+ *         an exact {@link Haversine#calculateDistance} on the survivors.
+ *
+ *         The error bounds below are relative to
+ *         {@link Haversine#calculateDistance(double, double, double, double)}
+ *         and were measured over millions of random pairs.
+ *
+ */
+public final class DistanceFunctions {
+
+	/**
+	 * Bound for {@link Mode#EQUIRECTANGULAR} with both points within 100 miles of
+	 * each other and between latitudes -70 and +70. Within 10 miles the bound is
+	 * {@link #NEAR_POLE_MAX_RELATIVE_ERROR} up to latitude 85. Beyond these the
+	 * error grows quickly.
+	 */
+	public static final double EQUIRECTANGULAR_MAX_RELATIVE_ERROR = 1e-3;
+
+	/**
+	 * Bound for {@link Mode#TANGENT_PLANE} with both points within 100 miles of
+	 * the reference and between latitudes -70 and +70. Within 10 miles of the
+	 * reference the bound is {@link #NEAR_POLE_MAX_RELATIVE_ERROR} up to latitude
+	 * 85. The error grows with the distance from the reference, quickly beyond
+	 * these.
+	 */
+	public static final double TANGENT_PLANE_MAX_RELATIVE_ERROR = 1e-3;
+
+	/**
+	 * Bound for {@link Mode#EQUIRECTANGULAR} and {@link Mode#TANGENT_PLANE} within
+	 * 10 miles up to latitude 85
+	 */
+	public static final double NEAR_POLE_MAX_RELATIVE_ERROR = 2e-4;
+
+	/**
+	 * Bound for {@link Mode#POLYNOMIAL} anywhere on the globe, antipodes
+	 * included, for points at least {@link #POLYNOMIAL_MIN_MILES} apart. Closer
+	 * than that the rounding of each longitude before the subtraction in
+	 * {@link Haversine#calculateDistance} dominates the difference.
+	 */
+	public static final double POLYNOMIAL_MAX_RELATIVE_ERROR = 1e-7;
+
+	public static final double POLYNOMIAL_MIN_MILES = 1e-4;
+
+	public enum Mode {
+
+		/**
+		 * The exact haversine formula
+		 */
+		HAVERSINE,
+
+		/**
+		 * Pythagoras on longitude scaled by the cosine of the mean latitude; one cos
+		 * and one sqrt per call
+		 */
+		EQUIRECTANGULAR,
+
+		/**
+		 * Flat-earth approximation local to a fixed reference point: as
+		 * {@link #EQUIRECTANGULAR} with the cosine of the mean latitude expanded as
+		 * a cubic about the reference latitude; no trigonometry per call
+		 */
+		TANGENT_PLANE,
+
+		/**
+		 * The haversine formula with polynomial sine, cosine and arcsine
+		 */
+		POLYNOMIAL
+	};
+
+	private DistanceFunctions() {
+	}
+
+	/**
+	 * @param reference required for {@link Mode#TANGENT_PLANE}, ignored otherwise
+	 */
+	public static DistanceFunction of(Mode mode, Haversine haversine, GeoPoint reference) {
+
+		switch (mode) {
+
+		case EQUIRECTANGULAR:
+			return equirectangular(haversine);
+
+		case TANGENT_PLANE:
+			return tangentPlane(haversine, reference);
+
+		case POLYNOMIAL:
+			return polynomial(haversine);
+
+		default:
+			return haversine(haversine);
+		}
+	}
+
+	public static DistanceFunction haversine(final Haversine haversine) {
+
+		return haversine::calculateDistance;
+	}
+
+	public static DistanceFunction equirectangular(Haversine haversine) {
+
+		final double radius = haversine.getMilesEarthRadiusApprox();
+
+		return (localLat, localLon, remoteLat, remoteLon) -> {
+
+			double radLocalLat = Haversine.radians(localLat);
+			double radRemoteLat = Haversine.radians(remoteLat);
+
+			double x = wrap(Haversine.radians(remoteLon - localLon)) * Math.cos((radLocalLat + radRemoteLat) / 2);
+			double y = radRemoteLat - radLocalLat;
+
+			return radius * Math.sqrt(x * x + y * y);
+		};
+	}
+
+	public static DistanceFunction tangentPlane(Haversine haversine, GeoPoint reference) {
+
+		if (null == reference) {
+
+			throw new IllegalArgumentException("Tangent plane mode needs a reference point");
+		}
+
+		final double radius = haversine.getMilesEarthRadiusApprox();
+
+		final double radReference = reference.getRadLat();
+		final double sinReference = reference.getSinLat();
+		final double cosReference = reference.getCosLat();
+
+		return (localLat, localLon, remoteLat, remoteLon) -> {
+
+			double radLocalLat = Haversine.radians(localLat);
+			double radRemoteLat = Haversine.radians(remoteLat);
+
+			// Taylor series of cos(reference + d) to d^3, within 2e-8 of the cosine
+			// 100 miles from the reference
+			double d = (radLocalLat + radRemoteLat) / 2 - radReference;
+
+			double cosMeanLat = cosReference - d * (sinReference + d * (cosReference / 2 - d * sinReference / 6));
+
+			double x = wrap(Haversine.radians(remoteLon - localLon)) * cosMeanLat;
+			double y = radRemoteLat - radLocalLat;
+
+			return radius * Math.sqrt(x * x + y * y);
+		};
+	}
+
+	public static DistanceFunction polynomial(Haversine haversine) {
+
+		final double radius = haversine.getMilesEarthRadiusApprox();
+
+		return (localLat, localLon, remoteLat, remoteLon) -> {
+
+			double radLocalLat = Haversine.radians(localLat);
+			double radRemoteLat = Haversine.radians(remoteLat);
+
+			// every argument lies in -pi/2...+pi/2 so no range reduction is needed
+
+			double halfLonDiff = wrap(Haversine.radians(remoteLon - localLon)) / 2;
+
+			double sinLat = sin((radRemoteLat - radLocalLat) / 2);
+			double sinLon = sin(halfLonDiff);
+
+			double cosLats = cos(radLocalLat) * cos(radRemoteLat);
+
+			double a = sinLat * sinLat + cosLats * sinLon * sinLon;
+
+			if (a <= 0.25) {
+
+				return radius * 2 * asin(Math.sqrt(a));
+			}
+
+			// 1 - a from the antipode of the remote location, which keeps its relative
+			// precision where a approaches 1 and the separation approaches pi
+			double sinMeanLat = sin((radLocalLat + radRemoteLat) / 2);
+			double cosLon = cos(halfLonDiff);
+
+			double b = sinMeanLat * sinMeanLat + cosLats * cosLon * cosLon;
+
+			return radius * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(b));
+		};
+	}
+
+	/**
+	 * Normalise radians of longitude difference to -pi...+pi
+	 */
+	static double wrap(double radians) {
+
+		if (radians > Math.PI) {
+
+			return radians - 2 * Math.PI;
+		}
+
+		if (radians < -Math.PI) {
+
+			return radians + 2 * Math.PI;
+		}
+
+		return radians;
+	}
+
+	/**
+	 * Taylor series to x^13, accurate to better than 1e-9 over -pi/2...+pi/2
+	 */
+	static double sin(double x) {
+
+		double x2 = x * x;
+
+		return x * (1 + x2 * (-1 / 6.0 + x2 * (1 / 120.0 + x2 * (-1 / 5040.0
+				+ x2 * (1 / 362880.0 + x2 * (-1 / 39916800.0 + x2 * (1 / 6227020800.0)))))));
+	}
+
+	/**
+	 * Taylor series to x^14, accurate to better than 1e-10 over -pi/2...+pi/2
+	 */
+	static double cos(double x) {
+
+		double x2 = x * x;
+
+		return 1 + x2 * (-0.5 + x2 * (1 / 24.0 + x2 * (-1 / 720.0 + x2 * (1 / 40320.0
+				+ x2 * (-1 / 3628800.0 + x2 * (1 / 479001600.0 + x2 * (-1 / 87178291200.0)))))));
+	}
+
+	/**
+	 * Series to s^19, accurate to better than 1e-8 over 0...0.5, which covers
+	 * separations up to a third of the way round the globe
+	 */
+	static double asin(double s) {
+
+		double s2 = s * s;
+
+		return s * (1 + s2 * (1 / 6.0 + s2 * (3 / 40.0 + s2 * (5 / 112.0 + s2 * (35 / 1152.0
+				+ s2 * (63 / 2816.0 + s2 * (231 / 13312.0 + s2 * (143 / 10240.0 + s2 * (6435 / 557056.0)))))))));
+	}
+}
@@ -0,0 +1,318 @@
+package uk.co.myzen.atoz.utility;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * @author howard
+ *
+ *         Computes the full distance and bearing matrix between a set of row
+ *         locations (e.g. devices) and column locations (e.g. gateways). The
+ *         matrix is split into square tiles small enough for the coordinates of
+ *         both sides to stay in cache, and the tiles are run across all cores
+ *         with fork-join. Results are streamed to a {@link Sink} one tile row
+ *         at a time so the matrix is never materialised on the heap.
+ *
+ *         The radian latitude, longitude and cosine of latitude of every
+ *         location are computed once up front, so each cell costs two sines,
+ *         one atan2 for distance and one sin, cos and atan2 for bearing.
+ *
+ */
+public class DistanceMatrix {
+
+	public static final int DEFAULT_TILE_SIZE = 256;
+
+	private final Haversine haversine;
+
+	private final int tileSize;
+
+	/**
+	 * Receives each tile row: distance and bearing from row location to the
+	 * column locations column...column + length - 1, taken from the arrays at
+	 * offset...offset + length - 1. Called concurrently from the fork-join
+	 * workers, and the arrays are reused once the call returns.
+	 */
+	@FunctionalInterface
+	public interface Sink {
+
+		void accept(int row, int column, double[] distances, double[] bearings, int offset, int length);
+	}
+
+	public DistanceMatrix() {
+
+		this(new Haversine(), DEFAULT_TILE_SIZE);
+	}
+
+	public DistanceMatrix(Haversine haversine, int tileSize) {
+
+		if (tileSize < 1) {
+
+			throw new IllegalArgumentException("Invalid tile size " + tileSize);
+		}
+
+		this.haversine = haversine;
+		this.tileSize = tileSize;
+	}
+
+	/**
+	 * Compute every row x column cell on the common fork-join pool, returning
+	 * once all have been passed to the sink
+	 */
+	public void compute(double[] rowLats, double[] rowLons, double[] columnLats, double[] columnLons, Sink sink) {
+
+		compute(rowLats, rowLons, columnLats, columnLons, sink, ForkJoinPool.commonPool());
+	}
+
+	public void compute(double[] rowLats, double[] rowLons, double[] columnLats, double[] columnLons, Sink sink,
+			ForkJoinPool pool) {
+
+		if (rowLats.length != rowLons.length || columnLats.length != columnLons.length) {
+
+			throw new IllegalArgumentException("Coordinate columns differ in length");
+		}
+
+		Side rows = new Side(rowLats, rowLons);
+		Side columns = new Side(columnLats, columnLons);
+
+		int rowTiles = (rows.length + tileSize - 1) / tileSize;
+		int columnTiles = (columns.length + tileSize - 1) / tileSize;
+
+		if (0 == rowTiles || 0 == columnTiles) {
+
+			return;
+		}
+
+		pool.invoke(new TileAction(rows, columns, sink, columnTiles, 0, rowTiles * columnTiles));
+	}
+
+	/**
+	 * Compute the matrix straight into a memory-mapped file using the layout of
+	 * {@link MappedFileSink}
+	 */
+	public void compute(double[] rowLats, double[] rowLons, double[] columnLats, double[] columnLons, Path file)
+			throws IOException {
+
+		try (MappedFileSink sink = new MappedFileSink(file, rowLats.length, columnLats.length)) {
+
+			compute(rowLats, rowLons, columnLats, columnLons, sink);
+		}
+	}
+
+	private void computeTile(Side rows, Side columns, Sink sink, int rowTile, int columnTile, double[] distances,
+			double[] bearings) {
+
+		final double radius = haversine.getMilesEarthRadiusApprox();
+
+		int rowFrom = rowTile * tileSize;
+		int rowTo = Math.min(rows.length, rowFrom + tileSize);
+
+		int columnFrom = columnTile * tileSize;
+		int columnTo = Math.min(columns.length, columnFrom + tileSize);
+
+		int length = columnTo - columnFrom;
+
+		for (int r = rowFrom; r < rowTo; r++) {
+
+			double radLatLocal = rows.radLat[r];
+			double radLonLocal = rows.radLon[r];
+			double sinLatLocal = rows.sinLat[r];
+			double cosLatLocal = rows.cosLat[r];
+
+			for (int c = columnFrom, i = 0; c < columnTo; c++, i++) {
+
+				double radLatRemote = columns.radLat[c];
+				double sinLatRemote = columns.sinLat[c];
+				double cosLatRemote = columns.cosLat[c];
+
+				double lonDiff = columns.radLon[c] - radLonLocal;
+
+				double sinLat = Math.sin((radLatRemote - radLatLocal) / 2);
+				double sinLon = Math.sin(lonDiff / 2);
+
+				double a = sinLat * sinLat + cosLatLocal * cosLatRemote * sinLon * sinLon;
+
+				distances[i] = radius * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(Math.max(0, 1 - a)));
+
+				double y = Math.sin(lonDiff) * cosLatRemote;
+				double x = cosLatLocal * sinLatRemote - sinLatLocal * cosLatRemote * Math.cos(lonDiff);
+
+				bearings[i] = (Haversine.degrees(Math.atan2(y, x)) + 360) % 360;
+			}
+
+			sink.accept(r, columnFrom, distances, bearings, 0, length);
+		}
+	}
+
+	private static class Side {
+
+		final int length;
+
+		final double[] radLat;
+		final double[] radLon;
+		final double[] sinLat;
+		final double[] cosLat;
+
+		Side(double[] lats, double[] lons) {
+
+			length = lats.length;
+
+			radLat = new double[length];
+			radLon = new double[length];
+			sinLat = new double[length];
+			cosLat = new double[length];
+
+			for (int i = 0; i < length; i++) {
+
+				radLat[i] = Haversine.radians(lats[i]);
+				radLon[i] = Haversine.radians(lons[i]);
+				sinLat[i] = Math.sin(radLat[i]);
+				cosLat[i] = Math.cos(radLat[i]);
+			}
+		}
+	}
+
+	private class TileAction extends RecursiveAction {
+
+		private static final long serialVersionUID = 2787010342564135874L;
+
+		private final Side rows;
+		private final Side columns;
+		private final Sink sink;
+
+		private final int columnTiles;
+
+		private final int fromTile;
+		private final int toTile;
+
+		TileAction(Side rows, Side columns, Sink sink, int columnTiles, int fromTile, int toTile) {
+
+			this.rows = rows;
+			this.columns = columns;
+			this.sink = sink;
+			this.columnTiles = columnTiles;
+			this.fromTile = fromTile;
+			this.toTile = toTile;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (toTile - fromTile > 1) {
+
+				int middle = (fromTile + toTile) >>> 1;
+
+				invokeAll(new TileAction(rows, columns, sink, columnTiles, fromTile, middle),
+						new TileAction(rows, columns, sink, columnTiles, middle, toTile));
+
+			} else {
+
+				double[] distances = new double[tileSize];
+				double[] bearings = new double[tileSize];
+
+				computeTile(rows, columns, sink, fromTile / columnTiles, fromTile % columnTiles, distances, bearings);
+			}
+		}
+	}
+
+	/**
+	 * Writes the matrix into a file as row-major cells of two little-endian
+	 * doubles, distance then bearing, so cell (row, column) starts at byte
+	 * (row * columns + column) * 16. The file is mapped in chunks of whole rows
+	 * so it may be far larger than the heap; pages are flushed by the operating
+	 * system and forced to disk on {@link #close()}. An existing file is
+	 * truncated first, so it holds exactly the matrix.
+	 */
+	public static class MappedFileSink implements Sink, Closeable {
+
+		public static final int CELL_BYTES = 2 * Double.BYTES;
+
+		private static final long CHUNK_BYTES = 1L << 30;
+
+		private final FileChannel channel;
+
+		private final int columns;
+
+		private final int rowsPerChunk;
+
+		private final MappedByteBuffer[] chunks;
+
+		public MappedFileSink(Path file, int rows, int columns) throws IOException {
+
+			long rowBytes = (long) columns * CELL_BYTES;
+
+			if (rowBytes > CHUNK_BYTES) {
+
+				throw new IllegalArgumentException("Too many columns " + columns);
+			}
+
+			this.columns = columns;
+
+			rowsPerChunk = (int) Math.max(1, CHUNK_BYTES / Math.max(1, rowBytes));
+
+			channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+					StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+			try {
+
+				chunks = new MappedByteBuffer[(rows + rowsPerChunk - 1) / rowsPerChunk];
+
+				for (int i = 0; i < chunks.length; i++) {
+
+					int chunkRows = Math.min(rowsPerChunk, rows - i * rowsPerChunk);
+
+					chunks[i] = channel.map(MapMode.READ_WRITE, i * rowsPerChunk * rowBytes, chunkRows * rowBytes);
+
+					chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+				}
+
+			} catch (IOException | RuntimeException e) {
+
+				channel.close();
+
+				throw e;
+			}
+		}
+
+		@Override
+		public void accept(int row, int column, double[] distances, double[] bearings, int offset, int length) {
+
+			// absolute puts leave the buffer position alone so disjoint rows may be
+			// written concurrently
+			MappedByteBuffer chunk = chunks[row / rowsPerChunk];
+
+			int index = ((row % rowsPerChunk) * columns + column) * CELL_BYTES;
+
+			for (int i = offset; i < offset + length; i++) {
+
+				chunk.putDouble(index, distances[i]);
+				chunk.putDouble(index + Double.BYTES, bearings[i]);
+
+				index += CELL_BYTES;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+
+			try {
+
+				for (MappedByteBuffer chunk : chunks) {
+
+					chunk.force();
+				}
+
+			} finally {
+
+				channel.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,258 @@
+package uk.co.myzen.atoz.utility;
+
+import uk.co.myzen.atoz.utility.Airtime.AirtimeException;
+
+/**
+ * @author howard
+ *
+ *         Enforces a radio duty cycle and a daily fair use airtime budget for
+ *         many devices, by default the EU868 1% duty cycle and 30 seconds of
+ *         uplink per day. After transmitting for T the device must stay silent
+ *         for T x (1 / duty cycle - 1), so each device only needs the time at
+ *         which it may next transmit. The fair use budget is counted in UTC day
+ *         buckets.
+ *
+ *         Airtimes are in tenths of a millisecond as tabulated by
+ *         {@link Airtime#tenthsMsAirtimeEstimate(int)}. Devices are addressed by
+ *         a dense slot number 0...capacity - 1 which the caller maps from its
+ *         own identifiers. State is three primitive arrays, 16 bytes per device,
+ *         so a million devices take 16MB with no per-frame allocation.
+ *
+ *         Updates to different devices run concurrently; each device is guarded
+ *         by one of a fixed set of striped locks.
+ *
+ */
+public class DutyCycleTracker {
+
+	public static final double DEFAULT_DUTY_CYCLE = 0.01;
+
+	public static final long DEFAULT_MS_DAILY_BUDGET = 30000;
+
+	private static final long MS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+	private static final int STRIPES = 256; // power of two
+
+	private final int capacity;
+
+	private final double dutyCycle;
+
+	private final long tenthsMsDailyBudget;
+
+	private final long[] nextAllowedMillis;
+
+	private final int[] day; // days since the epoch of the usage below
+	private final int[] tenthsMsUsed;
+
+	private final Object[] locks = new Object[STRIPES];
+
+	public DutyCycleTracker(int capacity) {
+
+		this(capacity, DEFAULT_DUTY_CYCLE, DEFAULT_MS_DAILY_BUDGET);
+	}
+
+	/**
+	 * @param capacity      number of device slots
+	 * @param dutyCycle     fraction of time a device may transmit, 0 < duty cycle
+	 *                      <= 1
+	 * @param msDailyBudget airtime allowed per device per UTC day
+	 */
+	public DutyCycleTracker(int capacity, double dutyCycle, long msDailyBudget) {
+
+		if (capacity < 0 || !(dutyCycle > 0 && dutyCycle <= 1) || msDailyBudget < 0
+				|| msDailyBudget > Integer.MAX_VALUE / 10) {
+
+			throw new IllegalArgumentException(
+					"Invalid capacity " + capacity + ", duty cycle " + dutyCycle + " or budget " + msDailyBudget);
+		}
+
+		this.capacity = capacity;
+		this.dutyCycle = dutyCycle;
+
+		tenthsMsDailyBudget = 10 * msDailyBudget;
+
+		nextAllowedMillis = new long[capacity];
+
+		day = new int[capacity];
+		tenthsMsUsed = new int[capacity];
+
+		for (int i = 0; i < STRIPES; i++) {
+
+			locks[i] = new Object();
+		}
+	}
+
+	public int getCapacity() {
+
+		return capacity;
+	}
+
+	public double getDutyCycle() {
+
+		return dutyCycle;
+	}
+
+	/**
+	 * @return true when the device is out of its silent period and has budget
+	 *         left today for a frame of this airtime
+	 */
+	public boolean maySend(int device, int tenthsMsAirtime, long timeMillis) {
+
+		check(device, tenthsMsAirtime);
+
+		synchronized (locks[device & (STRIPES - 1)]) {
+
+			return allowed(device, tenthsMsAirtime, timeMillis);
+		}
+	}
+
+	public boolean maySend(int device, Airtime airtime, int payloadSize, long timeMillis) throws AirtimeException {
+
+		return maySend(device, airtime.tenthsMsAirtimeEstimate(payloadSize), timeMillis);
+	}
+
+	/**
+	 * Records the transmission only if {@link #maySend} would allow it, as one
+	 * atomic step
+	 *
+	 * @return false when the frame was refused and nothing was recorded
+	 */
+	public boolean trySend(int device, int tenthsMsAirtime, long timeMillis) {
+
+		check(device, tenthsMsAirtime);
+
+		synchronized (locks[device & (STRIPES - 1)]) {
+
+			if (!allowed(device, tenthsMsAirtime, timeMillis)) {
+
+				return false;
+			}
+
+			add(device, tenthsMsAirtime, timeMillis);
+
+			return true;
+		}
+	}
+
+	public boolean trySend(int device, Airtime airtime, int payloadSize, long timeMillis) throws AirtimeException {
+
+		return trySend(device, airtime.tenthsMsAirtimeEstimate(payloadSize), timeMillis);
+	}
+
+	/**
+	 * Records a transmission that has happened whether or not it was allowed
+	 *
+	 * @param timeMillis when the transmission started
+	 */
+	public void record(int device, int tenthsMsAirtime, long timeMillis) {
+
+		check(device, tenthsMsAirtime);
+
+		synchronized (locks[device & (STRIPES - 1)]) {
+
+			add(device, tenthsMsAirtime, timeMillis);
+		}
+	}
+
+	public void record(int device, Airtime airtime, int payloadSize, long timeMillis) throws AirtimeException {
+
+		record(device, airtime.tenthsMsAirtimeEstimate(payloadSize), timeMillis);
+	}
+
+	/**
+	 * @return mS until the duty cycle allows the device to transmit, 0 if it may
+	 *         transmit now
+	 */
+	public long msUntilAllowed(int device, long timeMillis) {
+
+		checkDevice(device);
+
+		synchronized (locks[device & (STRIPES - 1)]) {
+
+			return Math.max(0, nextAllowedMillis[device] - timeMillis);
+		}
+	}
+
+	/**
+	 * @return fair use airtime left for the rest of the UTC day containing
+	 *         timeMillis, in tenths of a millisecond, 0 once a recorded
+	 *         transmission has overrun the budget
+	 */
+	public int tenthsMsRemaining(int device, long timeMillis) {
+
+		checkDevice(device);
+
+		synchronized (locks[device & (STRIPES - 1)]) {
+
+			return (int) Math.max(0, tenthsMsDailyBudget - used(device, timeMillis));
+		}
+	}
+
+	public float msRemaining(int device, long timeMillis) {
+
+		return tenthsMsRemaining(device, timeMillis) / 10f;
+	}
+
+	public void clear(int device) {
+
+		checkDevice(device);
+
+		synchronized (locks[device & (STRIPES - 1)]) {
+
+			nextAllowedMillis[device] = 0;
+			day[device] = 0;
+			tenthsMsUsed[device] = 0;
+		}
+	}
+
+	private boolean allowed(int device, int tenthsMsAirtime, long timeMillis) {
+
+		return timeMillis >= nextAllowedMillis[device]
+				&& used(device, timeMillis) + tenthsMsAirtime <= tenthsMsDailyBudget;
+	}
+
+	private void add(int device, int tenthsMsAirtime, long timeMillis) {
+
+		int today = day(timeMillis);
+
+		if (day[device] != today) {
+
+			day[device] = today;
+			tenthsMsUsed[device] = 0;
+		}
+
+		tenthsMsUsed[device] = (int) Math.min(Integer.MAX_VALUE, (long) tenthsMsUsed[device] + tenthsMsAirtime);
+
+		// on air plus the silent period is airtime / duty cycle
+		long next = timeMillis + (long) Math.ceil(tenthsMsAirtime / (10 * dutyCycle));
+
+		nextAllowedMillis[device] = Math.max(nextAllowedMillis[device], next);
+	}
+
+	private long used(int device, long timeMillis) {
+
+		return day[device] == day(timeMillis) ? tenthsMsUsed[device] : 0;
+	}
+
+	private static int day(long timeMillis) {
+
+		return (int) Math.floorDiv(timeMillis, MS_PER_DAY);
+	}
+
+	private void check(int device, int tenthsMsAirtime) {
+
+		checkDevice(device);
+
+		if (tenthsMsAirtime < 0) {
+
+			throw new IllegalArgumentException("Invalid airtime " + tenthsMsAirtime);
+		}
+	}
+
+	private void checkDevice(int device) {
+
+		if (device < 0 || device >= capacity) {
+
+			throw new IndexOutOfBoundsException("Device " + device + " capacity " + capacity);
+		}
+	}
+}
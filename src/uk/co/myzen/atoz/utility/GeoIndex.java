@@ -0,0 +1,468 @@
+package uk.co.myzen.atoz.utility;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * @author howard
+ *
+ *         In-memory spatial index of items such as gateways located by
+ *         latitude/longitude. Locations are held as {@link Cartesian} style unit
+ *         vectors bucketed into a uniform three dimensional grid, which avoids
+ *         any special handling of the poles or the antimeridian. Candidates are
+ *         pre-filtered by chord length, which is monotonic in great-circle
+ *         distance, and the results are ranked and reported using
+ *         {@link Haversine}.
+ *
+ *         Not thread safe: concurrent readers are fine once loading is
+ *         complete, but inserts and removes need external synchronisation.
+ *
+ */
+public class GeoIndex<T> {
+
+	public static final double DEFAULT_CELL_MILES = 10;
+
+	private final Haversine haversine;
+
+	private final double cellSize; // edge of a grid cell in unit vector space
+
+	private final int cellsPerAxis;
+
+	private final Map<Long, List<Entry<T>>> cells = new HashMap<Long, List<Entry<T>>>();
+
+	private final Map<T, Entry<T>> entries = new HashMap<T, Entry<T>>();
+
+	public static class Neighbour<T> implements Comparable<Neighbour<T>> {
+
+		private final T item;
+		private final GeoPoint point;
+		private final double distance;
+
+		Neighbour(T item, GeoPoint point, double distance) {
+
+			this.item = item;
+			this.point = point;
+			this.distance = distance;
+		}
+
+		public T getItem() {
+			return item;
+		}
+
+		public GeoPoint getPoint() {
+			return point;
+		}
+
+		public double getDistance() {
+			return distance;
+		}
+
+		@Override
+		public int compareTo(Neighbour<T> other) {
+
+			return Double.compare(distance, other.distance);
+		}
+	}
+
+	private static class Entry<T> {
+
+		final T item;
+		final GeoPoint point;
+
+		final double x;
+		final double y;
+		final double z;
+
+		final long key;
+
+		Entry(T item, GeoPoint point, double x, double y, double z, long key) {
+
+			this.item = item;
+			this.point = point;
+			this.x = x;
+			this.y = y;
+			this.z = z;
+			this.key = key;
+		}
+	}
+
+	public GeoIndex() {
+
+		this(new Haversine(), DEFAULT_CELL_MILES);
+	}
+
+	/**
+	 * @param haversine distances are reported in the units of this instance
+	 * @param cellMiles approximate grid cell size; best set near the typical
+	 *                  query radius
+	 */
+	public GeoIndex(Haversine haversine, double cellMiles) {
+
+		if (!(cellMiles > 0)) {
+
+			throw new IllegalArgumentException("Invalid cell size " + cellMiles);
+		}
+
+		this.haversine = haversine;
+
+		double chord = chord(cellMiles / Haversine.APPROX_RADIUS_EARTH_MILES);
+
+		cellsPerAxis = Math.min((int) Math.ceil(2 / chord), 1 << 20);
+
+		cellSize = 2.0 / cellsPerAxis;
+	}
+
+	public int size() {
+
+		return entries.size();
+	}
+
+	public boolean contains(T item) {
+
+		return entries.containsKey(item);
+	}
+
+	/**
+	 * Adds the item, replacing its location if it is already indexed
+	 */
+	public void insert(T item, GeoPoint point) {
+
+		remove(item);
+
+		double x = point.getCosLat() * point.getCosLon();
+		double y = point.getCosLat() * point.getSinLon();
+		double z = point.getSinLat();
+
+		Entry<T> entry = new Entry<T>(item, point, x, y, z, key(cell(x), cell(y), cell(z)));
+
+		entries.put(item, entry);
+
+		List<Entry<T>> cell = cells.get(entry.key);
+
+		if (null == cell) {
+
+			cell = new ArrayList<Entry<T>>(4);
+
+			cells.put(entry.key, cell);
+		}
+
+		cell.add(entry);
+	}
+
+	public void insert(T item, double latitude, double longitude) {
+
+		insert(item, new GeoPoint(latitude, longitude));
+	}
+
+	/**
+	 * Bulk load of items and their locations, index i of each list describing one
+	 * item
+	 */
+	public void insertAll(List<T> items, List<GeoPoint> points) {
+
+		if (items.size() != points.size()) {
+
+			throw new IllegalArgumentException("Item count " + items.size() + " differs from " + points.size());
+		}
+
+		for (int i = 0; i < items.size(); i++) {
+
+			insert(items.get(i), points.get(i));
+		}
+	}
+
+	/**
+	 * @return true if the item was indexed
+	 */
+	public boolean remove(T item) {
+
+		Entry<T> entry = entries.remove(item);
+
+		if (null == entry) {
+
+			return false;
+		}
+
+		List<Entry<T>> cell = cells.get(entry.key);
+
+		cell.remove(entry);
+
+		if (cell.isEmpty()) {
+
+			cells.remove(entry.key);
+		}
+
+		return true;
+	}
+
+	public void clear() {
+
+		cells.clear();
+		entries.clear();
+	}
+
+	/**
+	 * @return every item within the distance of the location, nearest first
+	 */
+	public List<Neighbour<T>> withinRadius(GeoPoint location, double distance) {
+
+		List<Neighbour<T>> result = new ArrayList<Neighbour<T>>();
+
+		if (entries.isEmpty() || distance < 0) {
+
+			return result;
+		}
+
+		double chord = chord(distance / haversine.getMilesEarthRadiusApprox());
+
+		double chordSq = chord * chord;
+
+		double x = location.getCosLat() * location.getCosLon();
+		double y = location.getCosLat() * location.getSinLon();
+		double z = location.getSinLat();
+
+		int minX = cell(x - chord);
+		int maxX = cell(x + chord);
+		int minY = cell(y - chord);
+		int maxY = cell(y + chord);
+		int minZ = cell(z - chord);
+		int maxZ = cell(z + chord);
+
+		long boxCells = (long) (maxX - minX + 1) * (maxY - minY + 1) * (maxZ - minZ + 1);
+
+		if (boxCells > cells.size()) {
+
+			// cheaper to walk the occupied cells than to probe the box
+
+			for (List<Entry<T>> cell : cells.values()) {
+
+				collect(cell, location, x, y, z, chordSq, distance, result);
+			}
+
+		} else {
+
+			for (int i = minX; i <= maxX; i++) {
+
+				for (int j = minY; j <= maxY; j++) {
+
+					for (int k = minZ; k <= maxZ; k++) {
+
+						List<Entry<T>> cell = cells.get(key(i, j, k));
+
+						if (null != cell) {
+
+							collect(cell, location, x, y, z, chordSq, distance, result);
+						}
+					}
+				}
+			}
+		}
+
+		Collections.sort(result);
+
+		return result;
+	}
+
+	public List<Neighbour<T>> withinRadius(double latitude, double longitude, double distance) {
+
+		return withinRadius(new GeoPoint(latitude, longitude), distance);
+	}
+
+	/**
+	 * @return up to count items nearest to the location, nearest first
+	 */
+	public List<Neighbour<T>> nearest(GeoPoint location, int count) {
+
+		List<Neighbour<T>> result = new ArrayList<Neighbour<T>>(Math.max(0, Math.min(count, entries.size())));
+
+		if (count <= 0 || entries.isEmpty()) {
+
+			return result;
+		}
+
+		double x = location.getCosLat() * location.getCosLon();
+		double y = location.getCosLat() * location.getSinLon();
+		double z = location.getSinLat();
+
+		int cx = cell(x);
+		int cy = cell(y);
+		int cz = cell(z);
+
+		// max-heap on chord squared holding the best candidates so far
+		PriorityQueue<double[]> heap = new PriorityQueue<double[]>(count + 1, (a, b) -> Double.compare(b[0], a[0]));
+
+		List<Entry<T>> candidates = new ArrayList<Entry<T>>();
+
+		int visited = 0;
+
+		for (int ring = 0; ring <= cellsPerAxis; ring++) {
+
+			long shell = (long) (2 * ring + 1) * (2 * ring + 1) * (2 * ring + 1);
+
+			if (shell > 4L * cells.size()) {
+
+				// the shells have become sparse so finish with a scan of what is left
+
+				for (List<Entry<T>> cell : cells.values()) {
+
+					Entry<T> first = cell.get(0);
+
+					if (chebyshev(first.key, cx, cy, cz) >= ring) {
+
+						visited += offer(cell, x, y, z, count, heap, candidates);
+					}
+				}
+
+				break;
+			}
+
+			visited += visitShell(ring, cx, cy, cz, x, y, z, count, heap, candidates);
+
+			// any unvisited cell is at least ring cell widths away
+			double reach = ring * cellSize;
+
+			if (visited == entries.size() || (heap.size() == count && heap.peek()[0] <= reach * reach)) {
+
+				break;
+			}
+		}
+
+		while (!heap.isEmpty()) {
+
+			Entry<T> entry = candidates.get((int) heap.poll()[1]);
+
+			result.add(new Neighbour<T>(entry.item, entry.point, haversine.calculateDistance(location, entry.point)));
+		}
+
+		Collections.sort(result);
+
+		return result;
+	}
+
+	public List<Neighbour<T>> nearest(double latitude, double longitude, int count) {
+
+		return nearest(new GeoPoint(latitude, longitude), count);
+	}
+
+	private int visitShell(int ring, int cx, int cy, int cz, double x, double y, double z, int count,
+			PriorityQueue<double[]> heap, List<Entry<T>> candidates) {
+
+		int visited = 0;
+
+		for (int i = Math.max(0, cx - ring); i <= Math.min(cellsPerAxis - 1, cx + ring); i++) {
+
+			boolean xEdge = Math.abs(i - cx) == ring;
+
+			for (int j = Math.max(0, cy - ring); j <= Math.min(cellsPerAxis - 1, cy + ring); j++) {
+
+				boolean xyEdge = xEdge || Math.abs(j - cy) == ring;
+
+				for (int k = Math.max(0, cz - ring); k <= Math.min(cellsPerAxis - 1, cz + ring); k++) {
+
+					if (!xyEdge && Math.abs(k - cz) != ring) {
+
+						// interior of the shell was visited by an earlier ring, jump to its far face
+						k = cz + ring - 1;
+
+						continue;
+					}
+
+					List<Entry<T>> cell = cells.get(key(i, j, k));
+
+					if (null != cell) {
+
+						visited += offer(cell, x, y, z, count, heap, candidates);
+					}
+				}
+			}
+		}
+
+		return visited;
+	}
+
+	private int offer(List<Entry<T>> cell, double x, double y, double z, int count, PriorityQueue<double[]> heap,
+			List<Entry<T>> candidates) {
+
+		for (Entry<T> entry : cell) {
+
+			double chordSq = chordSq(entry, x, y, z);
+
+			if (heap.size() < count) {
+
+				heap.add(new double[] { chordSq, candidates.size() });
+
+				candidates.add(entry);
+
+			} else if (chordSq < heap.peek()[0]) {
+
+				heap.poll();
+
+				heap.add(new double[] { chordSq, candidates.size() });
+
+				candidates.add(entry);
+			}
+		}
+
+		return cell.size();
+	}
+
+	private void collect(List<Entry<T>> cell, GeoPoint location, double x, double y, double z, double chordSq,
+			double distance, List<Neighbour<T>> result) {
+
+		for (Entry<T> entry : cell) {
+
+			if (chordSq(entry, x, y, z) <= chordSq) {
+
+				double d = haversine.calculateDistance(location, entry.point);
+
+				if (d <= distance) {
+
+					result.add(new Neighbour<T>(entry.item, entry.point, d));
+				}
+			}
+		}
+	}
+
+	private int chebyshev(long key, int cx, int cy, int cz) {
+
+		int k = (int) (key % cellsPerAxis);
+		int j = (int) ((key / cellsPerAxis) % cellsPerAxis);
+		int i = (int) (key / cellsPerAxis / cellsPerAxis);
+
+		return Math.max(Math.abs(i - cx), Math.max(Math.abs(j - cy), Math.abs(k - cz)));
+	}
+
+	private static double chordSq(Entry<?> entry, double x, double y, double z) {
+
+		double dx = entry.x - x;
+		double dy = entry.y - y;
+		double dz = entry.z - z;
+
+		return dx * dx + dy * dy + dz * dz;
+	}
+
+	/**
+	 * Straight line distance through a unit sphere for a central angle, padded
+	 * slightly so the pre-filter never rejects a point the exact test would keep
+	 */
+	static double chord(double angularDistance) {
+
+		return 2 * Math.sin(Math.min(angularDistance, Math.PI) / 2) * (1 + 1e-9) + 1e-12;
+	}
+
+	private int cell(double coordinate) {
+
+		int index = (int) Math.floor((coordinate + 1) / cellSize);
+
+		return index < 0 ? 0 : index >= cellsPerAxis ? cellsPerAxis - 1 : index;
+	}
+
+	private long key(int i, int j, int k) {
+
+		return ((long) i * cellsPerAxis + j) * cellsPerAxis + k;
+	}
+}
@@ -0,0 +1,108 @@
+package uk.co.myzen.atoz.utility;
+
+/**
+ * @author howard
+ *
+ *         Immutable latitude/longitude that precomputes its radian coordinates
+ *         and their sine and cosine once. Intended for fixed locations such as
+ *         gateways which are compared against many devices, so the
+ *         {@link Haversine} methods accepting a GeoPoint can skip the repeated
+ *         trigonometry.
+ *
+ */
+public final class GeoPoint {
+
+	private final double latitude;
+	private final double longitude;
+
+	private final double radLat;
+	private final double radLon;
+
+	private final double sinLat;
+	private final double cosLat;
+
+	private final double sinLon;
+	private final double cosLon;
+
+	public GeoPoint(double latitude, double longitude) {
+
+		this.latitude = latitude;
+		this.longitude = longitude;
+
+		radLat = Haversine.radians(latitude);
+		radLon = Haversine.radians(longitude);
+
+		sinLat = Math.sin(radLat);
+		cosLat = Math.cos(radLat);
+
+		sinLon = Math.sin(radLon);
+		cosLon = Math.cos(radLon);
+	}
+
+	public double getLatitude() {
+		return latitude;
+	}
+
+	public double getLongitude() {
+		return longitude;
+	}
+
+	public double getRadLat() {
+		return radLat;
+	}
+
+	public double getRadLon() {
+		return radLon;
+	}
+
+	public double getSinLat() {
+		return sinLat;
+	}
+
+	public double getCosLat() {
+		return cosLat;
+	}
+
+	public double getSinLon() {
+		return sinLon;
+	}
+
+	public double getCosLon() {
+		return cosLon;
+	}
+
+	public Cartesian toCartesian(int altitude) {
+
+		return new Cartesian(cosLat * cosLon, cosLat * sinLon, sinLat, altitude);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+
+		if (this == obj) {
+
+			return true;
+		}
+
+		if (!(obj instanceof GeoPoint)) {
+
+			return false;
+		}
+
+		GeoPoint other = (GeoPoint) obj;
+
+		return Double.compare(latitude, other.latitude) == 0 && Double.compare(longitude, other.longitude) == 0;
+	}
+
+	@Override
+	public int hashCode() {
+
+		return 31 * Double.hashCode(latitude) + Double.hashCode(longitude);
+	}
+
+	@Override
+	public String toString() {
+
+		return "GeoPoint [" + latitude + ", " + longitude + "]";
+	}
+}
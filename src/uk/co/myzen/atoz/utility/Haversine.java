@@ -3,6 +3,12 @@
  */
 package uk.co.myzen.atoz.utility;
 
+import java.nio.DoubleBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import uk.co.myzen.atoz.utility.Metrics.Metric;
+
 /**
  * @author howard
  *
@@ -41,8 +47,60 @@ public class Haversine {
 
 	public static final double RADIANS_TO_DEGREES = 57.29577951308232;
 
+	/**
+	 * Maximum absolute difference in miles between the batch methods and
+	 * {@link #calculateDistance(double, double, double, double)} for the same
+	 * pair of locations on a mean radius Earth
+	 */
+	public static final double BATCH_DISTANCE_TOLERANCE_MILES = 1e-8;
+
+	/**
+	 * Maximum absolute difference in degrees between the batch methods and
+	 * {@link #calculateBearing(double, double, double, double)} for the same pair
+	 * of locations
+	 */
+	public static final double BATCH_BEARING_TOLERANCE_DEGREES = 1e-9;
+
+	/**
+	 * Below this number of pairs the parallel batch methods run in the calling
+	 * thread
+	 */
+	public static final int PARALLEL_BATCH_THRESHOLD = 1 << 14;
+
 	private final double milesEarthRadiusApprox;
 
+	/**
+	 * Reusable holder for the result of
+	 * {@link Haversine#calculateInverse(double, double, double, double, Inverse)}
+	 */
+	public static class Inverse {
+
+		private double distance;
+		private double initialBearing;
+		private double finalBearing;
+
+		public Inverse() {
+		}
+
+		public double getDistance() {
+			return distance;
+		}
+
+		/**
+		 * @return degrees 0...360 on leaving the local location
+		 */
+		public double getInitialBearing() {
+			return initialBearing;
+		}
+
+		/**
+		 * @return degrees 0...360 on arrival at the remote location
+		 */
+		public double getFinalBearing() {
+			return finalBearing;
+		}
+	}
+
 	public Haversine(double metresEarthRadiusApprox) {
 
 		if (metresEarthRadiusApprox < 6000000) {
@@ -63,6 +121,15 @@ public class Haversine {
 		milesEarthRadiusApprox = APPROX_RADIUS_EARTH_MILES;
 	}
 
+	/**
+	 * @return the radius used for distances, 1 when this instance returns angular
+	 *         distances
+	 */
+	public double getMilesEarthRadiusApprox() {
+
+		return milesEarthRadiusApprox;
+	}
+
 	public static double milesToNauticalMiles(double distanceMiles) {
 
 		return NAUTICAL_MILES_IN_A_MILE * distanceMiles;
@@ -75,25 +142,147 @@ public class Haversine {
 
 	public static Double toRadians(double value) {
 
-		return value * DEGREES_TO_RADIANS;
+		return radians(value);
 	}
 
 	public static Double toDegrees(double value) {
 
-		return (double) RADIANS_TO_DEGREES * value;
+		return degrees(value);
 	}
 
-	public double calculateFeetHeightFromAngle(double angle, double distanceMiles) {
+	/**
+	 * Primitive form of {@link #toRadians(double)}
+	 */
+	public static double radians(double value) {
+
+		return value * DEGREES_TO_RADIANS;
+	}
+
+	/**
+	 * Primitive form of {@link #toDegrees(double)}
+	 */
+	public static double degrees(double value) {
+
+		return RADIANS_TO_DEGREES * value;
+	}
+
+	/*
+	 * The kernel methods below use only primitive arithmetic so that the hot
+	 * paths never depend on escape analysis to remove boxing. Angles are in
+	 * radians unless stated otherwise. The public calculate methods are thin
+	 * wrappers that convert units and apply the Earth radius.
+	 */
+
+	/**
+	 * Haversine central angle between two locations
+	 * 
+	 * @return radians
+	 */
+	public static double angularDistance(double radLocalLat, double radLocalLon, double radRemoteLat,
+			double radRemoteLon) {
+
+		double sinLat = Math.sin((radRemoteLat - radLocalLat) / 2);
+		double sinLon = Math.sin((radRemoteLon - radLocalLon) / 2);
+
+		double a = sinLat * sinLat + Math.cos(radLocalLat) * Math.cos(radRemoteLat) * sinLon * sinLon;
+
+		// rounding can take a just past 1 near antipodes, which would give NaN
+		return 2 * Math.atan2(Math.sqrt(a), Math.sqrt(Math.max(0, 1 - a)));
+	}
+
+	/**
+	 * Initial great-circle bearing from the local to the remote location
+	 * 
+	 * @return degrees normalised to 0...360
+	 */
+	public static double initialBearing(double radLocalLat, double radLocalLon, double radRemoteLat,
+			double radRemoteLon) {
+
+		double lonDiff = radRemoteLon - radLocalLon;
+
+		double cosLatRemote = Math.cos(radRemoteLat);
+
+		double y = Math.sin(lonDiff) * cosLatRemote;
+
+		double x = Math.cos(radLocalLat) * Math.sin(radRemoteLat)
+				- Math.sin(radLocalLat) * cosLatRemote * Math.cos(lonDiff);
+
+		return (degrees(Math.atan2(y, x)) + 360) % 360;
+	}
+
+	/**
+	 * Latitude reached by travelling the angular distance along the bearing
+	 * 
+	 * @return radians
+	 */
+	public static double remoteLatitude(double radBearing, double angularDistance, double radLocalLat) {
+
+		return Math.asin(Math.sin(radLocalLat) * Math.cos(angularDistance)
+				+ Math.cos(radLocalLat) * Math.sin(angularDistance) * Math.cos(radBearing));
+	}
+
+	/**
+	 * Longitude reached by travelling the angular distance along the bearing
+	 * 
+	 * @return radians, not normalised
+	 */
+	public static double remoteLongitude(double radBearing, double angularDistance, double radLocalLat,
+			double radLocalLon, double radRemoteLat) {
+
+		double y = Math.sin(radBearing) * Math.sin(angularDistance) * Math.cos(radLocalLat);
+		double x = Math.cos(angularDistance) - Math.sin(radLocalLat) * Math.sin(radRemoteLat);
+
+		return radLocalLon + Math.atan2(y, x);
+	}
+
+	/**
+	 * Elevation angle from local to remote height allowing for Earth curvature
+	 * 
+	 * @return degrees
+	 */
+	public static double elevationAngle(double distanceMiles, double ftLocalHeight, double ftRemoteHeight) {
+
+		double ftDistance = distanceMiles * FEET_IN_MILE;
+
+		double radAngularDrop = distanceMiles / (2 * APPROX_RADIUS_EARTH_MILES);
+
+		double ftDiff = ftRemoteHeight - ftLocalHeight;
+
+		double radians = ftDistance <= 0 ? 0 : ftDiff / ftDistance;
+
+		return degrees(Math.atan(radians - radAngularDrop));
+	}
+
+	/**
+	 * Height gained along a ray leaving at the elevation angle, allowing for Earth
+	 * curvature. The inverse of
+	 * {@link #elevationAngle(double, double, double)}.
+	 * 
+	 * @param angle degrees
+	 * @return feet
+	 */
+	public static double feetHeightFromAngle(double angle, double distanceMiles) {
 
 		double ftDistance = distanceMiles * FEET_IN_MILE;
 
 		double radAngularDrop = distanceMiles / (2 * APPROX_RADIUS_EARTH_MILES);
 
-		double tangent = Math.tan(toRadians(angle) + radAngularDrop);
+		double tangent = Math.tan(radians(angle) + radAngularDrop);
 
-		double height = tangent * ftDistance;
+		return tangent * ftDistance;
+	}
 
-		return height;
+	/**
+	 * Normalise degrees of longitude to -180...+180
+	 */
+	public static double normaliseLongitude(double lon) {
+
+		return (540 + lon) % 360 - 180;
+	}
+
+	public double calculateFeetHeightFromAngle(double angle, double distanceMiles) {
+
+		return feetHeightFromAngle(angle, distanceMiles);
 	}
 
 	/**
@@ -110,86 +299,591 @@ public class Haversine {
 
 		// (180/pi) * atan{ (elev2 - elev1) / d - ( d/2*R ) }
 
-		double ftDistance = distanceMiles * FEET_IN_MILE;
+		return elevationAngle(distanceMiles, ftLocalHeight, ftRemoteHeight);
+	}
 
-		double radAngularDrop = distanceMiles / (2 * APPROX_RADIUS_EARTH_MILES);
+	public double calculateRemoteLatitude(double bearing, double distance, double localLat) {
 
-		double ftDiff = ftRemoteHeight - ftLocalHeight;
+		final double angularDistance = distance / milesEarthRadiusApprox;
 
-		double radians = ftDistance <= 0 ? 0 : ftDiff / ftDistance;
+		return degrees(remoteLatitude(radians(bearing), angularDistance, radians(localLat)));
+	}
 
-		double angle = toDegrees(Math.atan(radians - radAngularDrop));
+	public double calculateRemoteLongitude(double bearing, double distance, double localLat, double localLon,
+			double remoteLat) {
+
+		final double angularDistance = distance / milesEarthRadiusApprox;
 
-		return angle;
+		double remoteLon = degrees(remoteLongitude(radians(bearing), angularDistance, radians(localLat),
+				radians(localLon), radians(remoteLat)));
+
+		// normalise to -180...+180
+		return normaliseLongitude(remoteLon);
 	}
 
-	public double calculateRemoteLatitude(double bearing, double distance, double localLat) {
+	public double calculateDistance(double localLat, double localLon, double remoteLat, double remoteLon) {
+
+		long start = Metrics.start();
+
+		double distance = milesEarthRadiusApprox
+				* angularDistance(radians(localLat), radians(localLon), radians(remoteLat), radians(remoteLon));
+
+		Metrics.stop(Metric.HAVERSINE_DISTANCE, start);
+
+		return distance;
+	}
+
+	public double calculateBearing(double localLat, double localLon, double remoteLat, double remoteLon) {
+
+		long start = Metrics.start();
+
+		double bearing = initialBearing(radians(localLat), radians(localLon), radians(remoteLat), radians(remoteLon));
+
+		Metrics.stop(Metric.HAVERSINE_BEARING, start);
+
+		return bearing;
+	}
+
+	/**
+	 * As {@link #calculateDistance(double, double, double, double)} but reuses
+	 * the cosine of latitude cached in each {@link GeoPoint}
+	 */
+	public double calculateDistance(GeoPoint local, GeoPoint remote) {
+
+		long start = Metrics.start();
+
+		double sinLat = Math.sin((remote.getRadLat() - local.getRadLat()) / 2);
+		double sinLon = Math.sin((remote.getRadLon() - local.getRadLon()) / 2);
+
+		double a = sinLat * sinLat + local.getCosLat() * remote.getCosLat() * sinLon * sinLon;
+
+		double distance = milesEarthRadiusApprox * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(Math.max(0, 1 - a)));
+
+		Metrics.stop(Metric.HAVERSINE_DISTANCE, start);
+
+		return distance;
+	}
+
+	/**
+	 * As {@link #calculateBearing(double, double, double, double)} but derives
+	 * every sine and cosine from those cached in each {@link GeoPoint}, so only
+	 * the final atan2 remains
+	 */
+	public double calculateBearing(GeoPoint local, GeoPoint remote) {
+
+		long start = Metrics.start();
+
+		// sin and cos of the longitude difference from the angle difference identities
+		double sinLonDiff = remote.getSinLon() * local.getCosLon() - remote.getCosLon() * local.getSinLon();
+		double cosLonDiff = remote.getCosLon() * local.getCosLon() + remote.getSinLon() * local.getSinLon();
+
+		double y = sinLonDiff * remote.getCosLat();
+
+		double x = local.getCosLat() * remote.getSinLat() - local.getSinLat() * remote.getCosLat() * cosLonDiff;
+
+		double bearing = (degrees(Math.atan2(y, x)) + 360) % 360;
+
+		Metrics.stop(Metric.HAVERSINE_BEARING, start);
+
+		return bearing;
+	}
+
+	/**
+	 * Location reached from the origin by travelling the distance along the
+	 * bearing. Equivalent to calling {@link #calculateRemoteLatitude} and
+	 * {@link #calculateRemoteLongitude} but reusing the trigonometry cached in the
+	 * origin.
+	 * 
+	 * @param origin
+	 * @param bearing  degrees
+	 * @param distance in the units of this instance's Earth radius
+	 * @return the destination
+	 */
+	public GeoPoint calculateDestination(GeoPoint origin, double bearing, double distance) {
 
 		final double angularDistance = distance / milesEarthRadiusApprox;
 
-		double radBearing = toRadians(bearing);
-		double radLocalLat = toRadians(localLat);
+		double radBearing = radians(bearing);
+
+		double sinDistance = Math.sin(angularDistance);
+		double cosDistance = Math.cos(angularDistance);
+
+		double sinRemoteLat = origin.getSinLat() * cosDistance
+				+ origin.getCosLat() * sinDistance * Math.cos(radBearing);
 
-		double a = Math.sin(radLocalLat) * Math.cos(angularDistance)
-				+ Math.cos(radLocalLat) * Math.sin(angularDistance) * Math.cos(radBearing);
+		double y = Math.sin(radBearing) * sinDistance * origin.getCosLat();
+		double x = cosDistance - origin.getSinLat() * sinRemoteLat;
 
-		double remoteLat = toDegrees(Math.asin(a));
+		double remoteLat = degrees(Math.asin(sinRemoteLat));
+		double remoteLon = normaliseLongitude(degrees(origin.getRadLon() + Math.atan2(y, x)));
 
-		return remoteLat;
+		return new GeoPoint(remoteLat, remoteLon);
 	}
 
-	public double calculateRemoteLongitude(double bearing, double distance, double localLat, double localLon,
-			double remoteLat) {
+	/**
+	 * Fused form of {@link #calculateRemoteLatitude} followed by
+	 * {@link #calculateRemoteLongitude}, converting the bearing and local
+	 * latitude and taking their sines and cosines only once
+	 * 
+	 * @param localLat    degrees
+	 * @param localLon    degrees
+	 * @param bearing     degrees
+	 * @param distance    in the units of this instance's Earth radius
+	 * @param destination caller supplied, receives the latitude at index 0 and the
+	 *                    longitude at index 1
+	 */
+	public void calculateDestination(double localLat, double localLon, double bearing, double distance,
+			double[] destination) {
 
 		final double angularDistance = distance / milesEarthRadiusApprox;
 
-		double radBearing = toRadians(bearing);
+		double radLocalLat = radians(localLat);
+		double radBearing = radians(bearing);
 
-		double radLocalLat = toRadians(localLat);
-		double radLocalLon = toRadians(localLon);
-		double radRemoteLat = toRadians(remoteLat);
+		destination(Math.sin(radLocalLat), Math.cos(radLocalLat), localLon, Math.sin(angularDistance),
+				Math.cos(angularDistance), Math.sin(radBearing), Math.cos(radBearing), destination, 0, destination, 1);
+	}
 
-		double y = Math.sin(radBearing) * Math.sin(angularDistance) * Math.cos(radLocalLat);
-		double x = Math.cos(angularDistance) - Math.sin(radLocalLat) * Math.sin(radRemoteLat);
+	/**
+	 * Destinations at one distance from the local location along each of the
+	 * bearings. Only the bearing dependent trigonometry is evaluated per point.
+	 * 
+	 * @param bearings degrees
+	 * @param lats     caller supplied output, at least as long as bearings
+	 * @param lons     caller supplied output, at least as long as bearings
+	 */
+	public void calculateRing(double localLat, double localLon, double distance, double[] bearings, double[] lats,
+			double[] lons) {
 
-		double remoteLon = toDegrees(radLocalLon + Math.atan2(y, x));
+		if (lats.length < bearings.length || lons.length < bearings.length) {
 
-		// normalise to -180...+180
-		return (540 + remoteLon) % 360 - 180;
+			throw new IllegalArgumentException("Output length is less than " + bearings.length);
+		}
+
+		final double angularDistance = distance / milesEarthRadiusApprox;
+
+		double radLocalLat = radians(localLat);
+
+		double sinLocalLat = Math.sin(radLocalLat);
+		double cosLocalLat = Math.cos(radLocalLat);
+
+		double sinDistance = Math.sin(angularDistance);
+		double cosDistance = Math.cos(angularDistance);
+
+		for (int i = 0; i < bearings.length; i++) {
+
+			double radBearing = radians(bearings[i]);
+
+			destination(sinLocalLat, cosLocalLat, localLon, sinDistance, cosDistance, Math.sin(radBearing),
+					Math.cos(radBearing), lats, i, lons, i);
+		}
 	}
 
-	public double calculateDistance(double localLat, double localLon, double remoteLat, double remoteLon) {
+	/**
+	 * Coverage ring of evenly spaced points clockwise from north at one distance
+	 * from the local location. The bearing sines and cosines are stepped by
+	 * rotation so the per point cost is one asin and one atan2. The ring is not
+	 * closed, append the first point again if a closed polygon is needed.
+	 * 
+	 * @param points number of points, the bearing step being 360 / points
+	 * @param lats   caller supplied output, at least points long
+	 * @param lons   caller supplied output, at least points long
+	 */
+	public void calculateRing(double localLat, double localLon, double distance, int points, double[] lats,
+			double[] lons) {
+
+		if (points < 0 || lats.length < points || lons.length < points) {
+
+			throw new IllegalArgumentException("Output length is less than " + points);
+		}
 
-		Double latDistance = toRadians(remoteLat - localLat);
-		Double lonDistance = toRadians(remoteLon - localLon);
+		final double angularDistance = distance / milesEarthRadiusApprox;
 
-		double latSq = Math.pow(Math.sin(latDistance / 2), 2); // just squaring the sin of half the distance
-		double lonSq = Math.pow(Math.sin(lonDistance / 2), 2);
+		double radLocalLat = radians(localLat);
 
-		Double a = latSq + Math.cos(toRadians(localLat)) * Math.cos(toRadians(remoteLat)) * lonSq;
+		double sinLocalLat = Math.sin(radLocalLat);
+		double cosLocalLat = Math.cos(radLocalLat);
 
-		Double angularDistance = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+		double sinDistance = Math.sin(angularDistance);
+		double cosDistance = Math.cos(angularDistance);
 
-		Double distance = milesEarthRadiusApprox * angularDistance;
+		double step = 2 * Math.PI / points;
 
-		return distance;
+		double sinStep = Math.sin(step);
+		double cosStep = Math.cos(step);
+
+		double sinBearing = 0;
+		double cosBearing = 1;
+
+		for (int i = 0; i < points; i++) {
+
+			destination(sinLocalLat, cosLocalLat, localLon, sinDistance, cosDistance, sinBearing, cosBearing, lats,
+					i, lons, i);
+
+			double next = sinBearing * cosStep + cosBearing * sinStep;
+
+			cosBearing = cosBearing * cosStep - sinBearing * sinStep;
+			sinBearing = next;
+		}
 	}
 
-	public double calculateBearing(double localLat, double localLon, double remoteLat, double remoteLon) {
+	private static void destination(double sinLocalLat, double cosLocalLat, double localLon, double sinDistance,
+			double cosDistance, double sinBearing, double cosBearing, double[] lats, int latIndex, double[] lons,
+			int lonIndex) {
 
-		double radLatLocal = Math.toRadians(localLat);
-		double radLatRemote = Math.toRadians(remoteLat);
+		double sinRemoteLat = sinLocalLat * cosDistance + cosLocalLat * sinDistance * cosBearing;
 
-		double lonDiff = Math.toRadians(remoteLon - localLon);
+		double y = sinBearing * sinDistance * cosLocalLat;
+		double x = cosDistance - sinLocalLat * sinRemoteLat;
 
-		double y = Math.sin(lonDiff) * Math.cos(radLatRemote);
+		lats[latIndex] = degrees(Math.asin(sinRemoteLat));
+		lons[lonIndex] = normaliseLongitude(localLon + degrees(Math.atan2(y, x)));
+	}
 
-		double x = Math.cos(radLatLocal) * Math.sin(radLatRemote)
-				- Math.sin(radLatLocal) * Math.cos(radLatRemote) * Math.cos(lonDiff);
+	/**
+	 * Solves the inverse problem in one pass: distance, initial bearing and final
+	 * bearing between the locations share the radian conversions and the sines
+	 * and cosines of both latitudes and of the longitude difference.
+	 * 
+	 * @param result caller supplied holder, overwritten and returned
+	 * @return result
+	 */
+	public Inverse calculateInverse(double localLat, double localLon, double remoteLat, double remoteLon,
+			Inverse result) {
 
-		double bearing = (Math.toDegrees(Math.atan2(y, x)) + 360) % 360;
+		double radLocalLat = radians(localLat);
+		double radRemoteLat = radians(remoteLat);
 
-		return bearing;
+		double halfLonDiff = radians(remoteLon - localLon) / 2;
+
+		double sinHalfLat = Math.sin((radRemoteLat - radLocalLat) / 2);
+		double sinHalfLon = Math.sin(halfLonDiff);
+		double cosHalfLon = Math.cos(halfLonDiff);
+
+		double sinLocalLat = Math.sin(radLocalLat);
+		double cosLocalLat = Math.cos(radLocalLat);
+		double sinRemoteLat = Math.sin(radRemoteLat);
+		double cosRemoteLat = Math.cos(radRemoteLat);
+
+		// double angle identities keep precision for small longitude differences
+		double sinLonDiff = 2 * sinHalfLon * cosHalfLon;
+		double cosLonDiff = 1 - 2 * sinHalfLon * sinHalfLon;
+
+		double a = sinHalfLat * sinHalfLat + cosLocalLat * cosRemoteLat * sinHalfLon * sinHalfLon;
+
+		result.distance = milesEarthRadiusApprox * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(Math.max(0, 1 - a)));
+
+		double y = sinLonDiff * cosRemoteLat;
+		double x = cosLocalLat * sinRemoteLat - sinLocalLat * cosRemoteLat * cosLonDiff;
+
+		result.initialBearing = (degrees(Math.atan2(y, x)) + 360) % 360;
+
+		// the bearing back from the remote location, reversed
+		y = -sinLonDiff * cosLocalLat;
+		x = cosRemoteLat * sinLocalLat - sinRemoteLat * cosLocalLat * cosLonDiff;
+
+		result.finalBearing = (degrees(Math.atan2(y, x)) + 180) % 360;
+
+		return result;
+	}
+
+	/**
+	 * Batch form of
+	 * {@link #calculateInverse(double, double, double, double, Inverse)}, index i
+	 * of every array describing one pair
+	 * 
+	 * @param distances       caller supplied output
+	 * @param initialBearings caller supplied output
+	 * @param finalBearings   caller supplied output
+	 */
+	public void calculateInverses(double[] localLats, double[] localLons, double[] remoteLats, double[] remoteLons,
+			double[] distances, double[] initialBearings, double[] finalBearings) {
+
+		int length = checkColumns(localLats.length, localLons.length, remoteLats.length, remoteLons.length,
+				Math.min(distances.length, Math.min(initialBearings.length, finalBearings.length)));
+
+		Inverse result = new Inverse();
+
+		for (int i = 0; i < length; i++) {
+
+			calculateInverse(localLats[i], localLons[i], remoteLats[i], remoteLons[i], result);
+
+			distances[i] = result.distance;
+			initialBearings[i] = result.initialBearing;
+			finalBearings[i] = result.finalBearing;
+		}
+	}
+
+	/**
+	 * Batch form of {@link #calculateDistance(double, double, double, double)}.
+	 * Each index i of the four coordinate columns describes one pair and the
+	 * distance is written to distances[i]. Nothing is allocated so the loop is a
+	 * candidate for JIT unrolling and vectorisation.
+	 * 
+	 * @param localLats  degrees
+	 * @param localLons  degrees
+	 * @param remoteLats degrees
+	 * @param remoteLons degrees
+	 * @param distances  caller supplied output, at least as long as the inputs
+	 */
+	public void calculateDistances(double[] localLats, double[] localLons, double[] remoteLats, double[] remoteLons,
+			double[] distances) {
+
+		int length = checkColumns(localLats.length, localLons.length, remoteLats.length, remoteLons.length,
+				distances.length);
+
+		long start = Metrics.start();
+
+		calculateDistances(localLats, localLons, remoteLats, remoteLons, distances, 0, length);
+
+		Metrics.stop(Metric.HAVERSINE_DISTANCES_BATCH, start);
+	}
+
+	/**
+	 * Batch form of {@link #calculateBearing(double, double, double, double)}.
+	 * 
+	 * @param localLats  degrees
+	 * @param localLons  degrees
+	 * @param remoteLats degrees
+	 * @param remoteLons degrees
+	 * @param bearings   caller supplied output, at least as long as the inputs
+	 */
+	public void calculateBearings(double[] localLats, double[] localLons, double[] remoteLats, double[] remoteLons,
+			double[] bearings) {
+
+		int length = checkColumns(localLats.length, localLons.length, remoteLats.length, remoteLons.length,
+				bearings.length);
+
+		calculateBearings(localLats, localLons, remoteLats, remoteLons, bearings, 0, length);
+	}
+
+	/**
+	 * Distances from one local location to every remote location in the columns
+	 * 
+	 * @param localLat   degrees
+	 * @param localLon   degrees
+	 * @param remoteLats degrees
+	 * @param remoteLons degrees
+	 * @param distances  caller supplied output, at least as long as the inputs
+	 */
+	public void calculateDistances(double localLat, double localLon, double[] remoteLats, double[] remoteLons,
+			double[] distances) {
+
+		int length = checkColumns(remoteLats.length, remoteLons.length, distances.length);
+
+		long start = Metrics.start();
+
+		double radLocalLat = radians(localLat);
+
+		double cosLocalLat = Math.cos(radLocalLat);
+
+		for (int i = 0; i < length; i++) {
+
+			double radRemoteLat = radians(remoteLats[i]);
+
+			double sinLat = Math.sin((radRemoteLat - radLocalLat) / 2);
+			double sinLon = Math.sin(radians(remoteLons[i] - localLon) / 2);
+
+			double a = sinLat * sinLat + cosLocalLat * Math.cos(radRemoteLat) * sinLon * sinLon;
+
+			distances[i] = milesEarthRadiusApprox * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(Math.max(0, 1 - a)));
+		}
+
+		Metrics.stop(Metric.HAVERSINE_DISTANCES_BATCH, start);
+	}
+
+	/**
+	 * {@link DoubleBuffer} form of
+	 * {@link #calculateDistances(double[], double[], double[], double[], double[])}
+	 * using absolute indexing between each buffer's position and limit. Buffer
+	 * positions are not changed.
+	 */
+	public void calculateDistances(DoubleBuffer localLats, DoubleBuffer localLons, DoubleBuffer remoteLats,
+			DoubleBuffer remoteLons, DoubleBuffer distances) {
+
+		int length = checkColumns(localLats.remaining(), localLons.remaining(), remoteLats.remaining(),
+				remoteLons.remaining(), distances.remaining());
+
+		int p0 = localLats.position();
+		int p1 = localLons.position();
+		int p2 = remoteLats.position();
+		int p3 = remoteLons.position();
+		int p4 = distances.position();
+
+		for (int i = 0; i < length; i++) {
+
+			distances.put(p4 + i, milesEarthRadiusApprox * angularDistance(radians(localLats.get(p0 + i)),
+					radians(localLons.get(p1 + i)), radians(remoteLats.get(p2 + i)), radians(remoteLons.get(p3 + i))));
+		}
+	}
+
+	/**
+	 * {@link DoubleBuffer} form of
+	 * {@link #calculateBearings(double[], double[], double[], double[], double[])}
+	 * using absolute indexing between each buffer's position and limit. Buffer
+	 * positions are not changed.
+	 */
+	public void calculateBearings(DoubleBuffer localLats, DoubleBuffer localLons, DoubleBuffer remoteLats,
+			DoubleBuffer remoteLons, DoubleBuffer bearings) {
+
+		int length = checkColumns(localLats.remaining(), localLons.remaining(), remoteLats.remaining(),
+				remoteLons.remaining(), bearings.remaining());
+
+		int p0 = localLats.position();
+		int p1 = localLons.position();
+		int p2 = remoteLats.position();
+		int p3 = remoteLons.position();
+		int p4 = bearings.position();
+
+		for (int i = 0; i < length; i++) {
+
+			bearings.put(p4 + i, initialBearing(radians(localLats.get(p0 + i)), radians(localLons.get(p1 + i)),
+					radians(remoteLats.get(p2 + i)), radians(remoteLons.get(p3 + i))));
+		}
+	}
+
+	/**
+	 * As
+	 * {@link #calculateDistances(double[], double[], double[], double[], double[])}
+	 * but splits inputs longer than {@link #PARALLEL_BATCH_THRESHOLD} across the
+	 * common fork-join pool
+	 */
+	public void calculateDistancesParallel(double[] localLats, double[] localLons, double[] remoteLats,
+			double[] remoteLons, double[] distances) {
+
+		int length = checkColumns(localLats.length, localLons.length, remoteLats.length, remoteLons.length,
+				distances.length);
+
+		long start = Metrics.start();
+
+		ForkJoinPool.commonPool()
+				.invoke(new BatchAction(this, false, localLats, localLons, remoteLats, remoteLons, distances, 0, length));
+
+		Metrics.stop(Metric.HAVERSINE_DISTANCES_BATCH, start);
+	}
+
+	/**
+	 * As
+	 * {@link #calculateBearings(double[], double[], double[], double[], double[])}
+	 * but splits inputs longer than {@link #PARALLEL_BATCH_THRESHOLD} across the
+	 * common fork-join pool
+	 */
+	public void calculateBearingsParallel(double[] localLats, double[] localLons, double[] remoteLats,
+			double[] remoteLons, double[] bearings) {
+
+		int length = checkColumns(localLats.length, localLons.length, remoteLats.length, remoteLons.length,
+				bearings.length);
+
+		ForkJoinPool.commonPool()
+				.invoke(new BatchAction(this, true, localLats, localLons, remoteLats, remoteLons, bearings, 0, length));
+	}
+
+	private void calculateDistances(double[] localLats, double[] localLons, double[] remoteLats, double[] remoteLons,
+			double[] distances, int from, int to) {
+
+		for (int i = from; i < to; i++) {
+
+			distances[i] = milesEarthRadiusApprox * angularDistance(radians(localLats[i]), radians(localLons[i]),
+					radians(remoteLats[i]), radians(remoteLons[i]));
+		}
+	}
+
+	private static void calculateBearings(double[] localLats, double[] localLons, double[] remoteLats,
+			double[] remoteLons, double[] bearings, int from, int to) {
+
+		for (int i = from; i < to; i++) {
+
+			bearings[i] = initialBearing(radians(localLats[i]), radians(localLons[i]), radians(remoteLats[i]),
+					radians(remoteLons[i]));
+		}
+	}
+
+	private static int checkColumns(int localLats, int localLons, int remoteLats, int remoteLons, int output) {
+
+		if (localLats != localLons || localLats != remoteLats || localLats != remoteLons) {
+
+			throw new IllegalArgumentException("Coordinate columns differ in length " + localLats + " " + localLons
+					+ " " + remoteLats + " " + remoteLons);
+		}
+
+		if (output < localLats) {
+
+			throw new IllegalArgumentException("Output length " + output + " is less than " + localLats);
+		}
+
+		return localLats;
+	}
+
+	private static int checkColumns(int remoteLats, int remoteLons, int output) {
+
+		if (remoteLats != remoteLons) {
+
+			throw new IllegalArgumentException("Coordinate columns differ in length " + remoteLats + " " + remoteLons);
+		}
+
+		if (output < remoteLats) {
+
+			throw new IllegalArgumentException("Output length " + output + " is less than " + remoteLats);
+		}
+
+		return remoteLats;
+	}
+
+	private static class BatchAction extends RecursiveAction {
+
+		private static final long serialVersionUID = -6420135977419018263L;
+
+		private final Haversine haversine;
+		private final boolean bearing;
+
+		private final double[] localLats;
+		private final double[] localLons;
+		private final double[] remoteLats;
+		private final double[] remoteLons;
+		private final double[] output;
+
+		private final int from;
+		private final int to;
+
+		BatchAction(Haversine haversine, boolean bearing, double[] localLats, double[] localLons, double[] remoteLats,
+				double[] remoteLons, double[] output, int from, int to) {
+
+			this.haversine = haversine;
+			this.bearing = bearing;
+			this.localLats = localLats;
+			this.localLons = localLons;
+			this.remoteLats = remoteLats;
+			this.remoteLons = remoteLons;
+			this.output = output;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (to - from <= PARALLEL_BATCH_THRESHOLD) {
+
+				if (bearing) {
+
+					calculateBearings(localLats, localLons, remoteLats, remoteLons, output, from, to);
+
+				} else {
+
+					haversine.calculateDistances(localLats, localLons, remoteLats, remoteLons, output, from, to);
+				}
+
+			} else {
+
+				int middle = (from + to) >>> 1;
+
+				invokeAll(
+						new BatchAction(haversine, bearing, localLats, localLons, remoteLats, remoteLons, output, from,
+								middle),
+						new BatchAction(haversine, bearing, localLats, localLons, remoteLats, remoteLons, output,
+								middle, to));
+			}
+		}
 	}
 
 }
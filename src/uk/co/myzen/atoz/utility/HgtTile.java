@@ -0,0 +1,129 @@
+package uk.co.myzen.atoz.utility;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author howard
+ *
+ *         One SRTM style .hgt elevation tile covering a 1 x 1 degree cell. The
+ *         file is a square grid of big-endian signed 16 bit heights in metres,
+ *         1201 x 1201 (3 arc-second) or 3601 x 3601 (1 arc-second), with the
+ *         first row at the northern edge. The file is memory-mapped read only
+ *         so the samples stay off the heap and are paged in on demand.
+ *
+ */
+public class HgtTile {
+
+	public static final short VOID = -32768;
+
+	private final int southLat;
+	private final int westLon;
+
+	private final int samples;
+
+	private final MappedByteBuffer buffer;
+
+	/**
+	 * @param file     named after its south west corner e.g. N51W001.hgt
+	 * @param southLat latitude of the southern edge
+	 * @param westLon  longitude of the western edge
+	 */
+	public HgtTile(Path file, int southLat, int westLon) throws IOException {
+
+		this.southLat = southLat;
+		this.westLon = westLon;
+
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+
+			long size = channel.size();
+
+			samples = (int) Math.round(Math.sqrt(size / 2.0));
+
+			if ((long) samples * samples * 2 != size || samples < 2) {
+
+				throw new IOException("Not a square .hgt grid " + file + " (" + size + " bytes)");
+			}
+
+			// the mapping remains valid after the channel is closed
+			buffer = channel.map(MapMode.READ_ONLY, 0, size);
+
+			buffer.order(ByteOrder.BIG_ENDIAN);
+		}
+	}
+
+	/**
+	 * @return the conventional file name for the tile containing the location
+	 */
+	public static String fileName(double latitude, double longitude) {
+
+		int lat = (int) Math.floor(latitude);
+		int lon = (int) Math.floor(longitude);
+
+		return String.format("%c%02d%c%03d.hgt", lat < 0 ? 'S' : 'N', Math.abs(lat), lon < 0 ? 'W' : 'E',
+				Math.abs(lon));
+	}
+
+	public int getSouthLat() {
+		return southLat;
+	}
+
+	public int getWestLon() {
+		return westLon;
+	}
+
+	public int getSamples() {
+		return samples;
+	}
+
+	/**
+	 * @return the raw sample at the grid position, row 0 being the northern edge
+	 */
+	public short sample(int row, int column) {
+
+		return buffer.getShort((row * samples + column) * 2);
+	}
+
+	/**
+	 * Bilinear interpolation between the four surrounding samples
+	 *
+	 * @return metres above sea level or NaN when any surrounding sample is void
+	 */
+	public double elevationMetres(double latitude, double longitude) {
+
+		int last = samples - 1;
+
+		double y = (southLat + 1 - latitude) * last;
+		double x = (longitude - westLon) * last;
+
+		// clamp onto the grid, the edges are shared with the neighbouring tiles
+		y = y < 0 ? 0 : y > last ? last : y;
+		x = x < 0 ? 0 : x > last ? last : x;
+
+		int row = Math.min((int) y, last - 1);
+		int column = Math.min((int) x, last - 1);
+
+		double fy = y - row;
+		double fx = x - column;
+
+		short nw = sample(row, column);
+		short ne = sample(row, column + 1);
+		short sw = sample(row + 1, column);
+		short se = sample(row + 1, column + 1);
+
+		if (VOID == nw || VOID == ne || VOID == sw || VOID == se) {
+
+			return Double.NaN;
+		}
+
+		double north = nw + (ne - nw) * fx;
+		double south = sw + (se - sw) * fx;
+
+		return north + (south - north) * fy;
+	}
+}
@@ -0,0 +1,150 @@
+package uk.co.myzen.atoz.utility;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author howard
+ *
+ *         Lock-free histogram of non-negative longs such as latencies in
+ *         nanoseconds, in the style of HdrHistogram. Each power of two is split
+ *         into {@value #SUB_BUCKETS} linear buckets, so any value is reported
+ *         within about 6% from a fixed array of counts whatever the range, and
+ *         recording is one atomic increment plus striped adders for the count,
+ *         sum and maximum.
+ *
+ *         Reads while values are being recorded are not a consistent snapshot
+ *         but each figure is within the values recorded so far.
+ *
+ */
+public class Histogram {
+
+	private static final int SUB_BUCKET_BITS = 4;
+
+	public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+	private final LongAdder count = new LongAdder();
+
+	private final LongAdder sum = new LongAdder();
+
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	public Histogram() {
+	}
+
+	/**
+	 * @param value negative values are recorded as 0
+	 */
+	public void record(long value) {
+
+		value = Math.max(0, value);
+
+		counts.incrementAndGet(bucket(value));
+
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	public long getCount() {
+
+		return count.sum();
+	}
+
+	public long getSum() {
+
+		return sum.sum();
+	}
+
+	public long getMax() {
+
+		return max.get();
+	}
+
+	/**
+	 * @return NaN when empty
+	 */
+	public double getMean() {
+
+		return (double) sum.sum() / count.sum();
+	}
+
+	/**
+	 * @param percentile 0 to 100
+	 * @return the highest value in the bucket holding the percentile, no more than
+	 *         the maximum, or 0 when empty
+	 */
+	public long getValueAtPercentile(double percentile) {
+
+		long total = 0;
+
+		for (int i = 0; i < BUCKETS; i++) {
+
+			total += counts.get(i);
+		}
+
+		long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * total));
+
+		long seen = 0;
+
+		for (int i = 0; i < BUCKETS; i++) {
+
+			seen += counts.get(i);
+
+			if (seen >= rank) {
+
+				return Math.min(highest(i), getMax());
+			}
+		}
+
+		return 0;
+	}
+
+	public void reset() {
+
+		for (int i = 0; i < BUCKETS; i++) {
+
+			counts.set(i, 0);
+		}
+
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+	static int bucket(long value) {
+
+		if (value < SUB_BUCKETS) {
+
+			return (int) value;
+		}
+
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+
+		int shift = exponent - SUB_BUCKET_BITS;
+
+		return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+	}
+
+	/**
+	 * @return the highest value that falls in the bucket
+	 */
+	static long highest(int bucket) {
+
+		if (bucket < SUB_BUCKETS) {
+
+			return bucket;
+		}
+
+		int shift = bucket / SUB_BUCKETS - 1;
+
+		long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+
+		return lowest + ((1L << shift) - 1);
+	}
+}
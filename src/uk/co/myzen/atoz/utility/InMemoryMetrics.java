@@ -0,0 +1,106 @@
+package uk.co.myzen.atoz.utility;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import uk.co.myzen.atoz.utility.Metrics.Metric;
+
+/**
+ * @author howard
+ *
+ *         Default {@link MetricsSink} keeping a striped counter and a
+ *         {@link Histogram} of nanoseconds per {@link Metric}, so recording
+ *         never takes a lock. The totals can be read directly or written out in
+ *         the Prometheus text exposition format.
+ *
+ */
+public class InMemoryMetrics implements MetricsSink {
+
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+	private final LongAdder[] counters;
+
+	private final Histogram[] histograms;
+
+	public InMemoryMetrics() {
+
+		Metric[] metrics = Metric.values();
+
+		counters = new LongAdder[metrics.length];
+		histograms = new Histogram[metrics.length];
+
+		for (int i = 0; i < metrics.length; i++) {
+
+			counters[i] = new LongAdder();
+			histograms[i] = new Histogram();
+		}
+	}
+
+	@Override
+	public void increment(Metric metric) {
+
+		counters[metric.ordinal()].increment();
+	}
+
+	@Override
+	public void recordNanos(Metric metric, long nanos) {
+
+		histograms[metric.ordinal()].record(nanos);
+	}
+
+	public long getCount(Metric metric) {
+
+		return counters[metric.ordinal()].sum();
+	}
+
+	public Histogram getHistogram(Metric metric) {
+
+		return histograms[metric.ordinal()];
+	}
+
+	public void reset() {
+
+		for (int i = 0; i < counters.length; i++) {
+
+			counters[i].reset();
+			histograms[i].reset();
+		}
+	}
+
+	/**
+	 * Writes every metric recorded so far, counters as atoz_name_total and
+	 * latencies as a summary atoz_name_nanos with quantiles
+	 */
+	public void export(Appendable out) throws IOException {
+
+		for (Metric metric : Metric.values()) {
+
+			String name = "atoz_" + metric.name().toLowerCase(Locale.ROOT);
+
+			long count = counters[metric.ordinal()].sum();
+
+			if (count > 0) {
+
+				out.append("# TYPE ").append(name).append("_total counter\n");
+				out.append(name).append("_total ").append(Long.toString(count)).append('\n');
+			}
+
+			Histogram histogram = histograms[metric.ordinal()];
+
+			if (histogram.getCount() > 0) {
+
+				out.append("# TYPE ").append(name).append("_nanos summary\n");
+
+				for (double quantile : QUANTILES) {
+
+					out.append(name).append("_nanos{quantile=\"").append(Double.toString(quantile)).append("\"} ")
+							.append(Long.toString(histogram.getValueAtPercentile(100 * quantile))).append('\n');
+				}
+
+				out.append(name).append("_nanos_sum ").append(Long.toString(histogram.getSum())).append('\n');
+				out.append(name).append("_nanos_count ").append(Long.toString(histogram.getCount())).append('\n');
+			}
+		}
+	}
+}
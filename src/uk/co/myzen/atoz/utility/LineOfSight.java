@@ -0,0 +1,208 @@
+package uk.co.myzen.atoz.utility;
+
+import java.util.stream.IntStream;
+
+/**
+ * @author howard
+ *
+ *         Terrain aware line of sight between pairs of antennas, e.g. a LoRa
+ *         gateway and a device. The great-circle path is sampled at a fixed
+ *         spacing and at each sample the height of the straight ray between
+ *         the antennas is compared with the terrain from a
+ *         {@link TerrainReader}. The ray height uses the same Earth curvature
+ *         correction as {@link Haversine#calculateElevationAngle} and
+ *         {@link Haversine#calculateFeetHeightFromAngle}.
+ *
+ *         Clearance is the smallest height in feet of the ray above the
+ *         terrain over the whole path, so a negative clearance means the link
+ *         is obstructed.
+ *
+ */
+public class LineOfSight {
+
+	public static final double DEFAULT_SAMPLE_MILES = 0.05; // about 80 metres, close to 3 arc-second tile spacing
+
+	private final TerrainReader terrain;
+
+	private final Haversine haversine = new Haversine();
+
+	private final double sampleMiles;
+
+	public LineOfSight(TerrainReader terrain) {
+
+		this(terrain, DEFAULT_SAMPLE_MILES);
+	}
+
+	public LineOfSight(TerrainReader terrain, double sampleMiles) {
+
+		if (!(sampleMiles > 0)) {
+
+			throw new IllegalArgumentException("Invalid sample spacing " + sampleMiles);
+		}
+
+		this.terrain = terrain;
+		this.sampleMiles = sampleMiles;
+	}
+
+	/**
+	 * @param ftLocalAboveGround  antenna height above the terrain at the local end
+	 * @param ftRemoteAboveGround antenna height above the terrain at the remote
+	 *                            end
+	 * @return minimum clearance in feet, negative when obstructed
+	 */
+	public double clearance(double localLat, double localLon, double ftLocalAboveGround, double remoteLat,
+			double remoteLon, double ftRemoteAboveGround) {
+
+		Cursor cursor = new Cursor();
+
+		double ftLocal = cursor.groundFeet(localLat, localLon, 0) + ftLocalAboveGround;
+		double ftRemote = cursor.groundFeet(remoteLat, remoteLon, 0) + ftRemoteAboveGround;
+
+		double clearance = Math.min(ftLocalAboveGround, ftRemoteAboveGround);
+
+		double distance = haversine.calculateDistance(localLat, localLon, remoteLat, remoteLon);
+
+		int samples = (int) Math.ceil(distance / sampleMiles);
+
+		if (samples < 2) {
+
+			return clearance;
+		}
+
+		double angle = Haversine.elevationAngle(distance, ftLocal, ftRemote);
+
+		// walk the great circle as a rotation of the local unit vector towards the
+		// remote one, so each sample costs a few multiplies rather than the trig
+		// of the destination formula
+
+		GeoPoint local = new GeoPoint(localLat, localLon);
+		GeoPoint remote = new GeoPoint(remoteLat, remoteLon);
+
+		double ax = local.getCosLat() * local.getCosLon();
+		double ay = local.getCosLat() * local.getSinLon();
+		double az = local.getSinLat();
+
+		double angularDistance = distance / Haversine.APPROX_RADIUS_EARTH_MILES;
+
+		double cosDistance = Math.cos(angularDistance);
+		double sinDistance = Math.sin(angularDistance);
+
+		// unit vector at right angles to local, in the plane of the great circle
+		double cx = (remote.getCosLat() * remote.getCosLon() - ax * cosDistance) / sinDistance;
+		double cy = (remote.getCosLat() * remote.getSinLon() - ay * cosDistance) / sinDistance;
+		double cz = (remote.getSinLat() - az * cosDistance) / sinDistance;
+
+		double cosStep = Math.cos(angularDistance / samples);
+		double sinStep = Math.sin(angularDistance / samples);
+
+		double cos = 1;
+		double sin = 0;
+
+		for (int i = 1; i < samples; i++) {
+
+			double next = cos * cosStep - sin * sinStep;
+
+			sin = sin * cosStep + cos * sinStep;
+			cos = next;
+
+			double x = ax * cos + cx * sin;
+			double y = ay * cos + cy * sin;
+			double z = az * cos + cz * sin;
+
+			double ground = cursor.groundFeet(Haversine.degrees(Math.asin(z)), Haversine.degrees(Math.atan2(y, x)),
+					Double.NaN);
+
+			if (!Double.isNaN(ground)) {
+
+				double miles = distance * i / samples;
+
+				double ray = ftLocal + Haversine.feetHeightFromAngle(angle, miles);
+
+				clearance = Math.min(clearance, ray - ground);
+			}
+		}
+
+		return clearance;
+	}
+
+	public boolean isObstructed(double localLat, double localLon, double ftLocalAboveGround, double remoteLat,
+			double remoteLon, double ftRemoteAboveGround) {
+
+		return clearance(localLat, localLon, ftLocalAboveGround, remoteLat, remoteLon, ftRemoteAboveGround) < 0;
+	}
+
+	/**
+	 * Batch form of {@link #clearance} run in parallel across the common
+	 * fork-join pool. Index i of every array describes one link.
+	 *
+	 * @param clearances caller supplied output of minimum clearance in feet
+	 * @param obstructed caller supplied output, may be null
+	 */
+	public void clearances(final double[] localLats, final double[] localLons, final double[] ftLocalAboveGround,
+			final double[] remoteLats, final double[] remoteLons, final double[] ftRemoteAboveGround,
+			final double[] clearances, final boolean[] obstructed) {
+
+		int length = localLats.length;
+
+		if (localLons.length != length || ftLocalAboveGround.length != length || remoteLats.length != length
+				|| remoteLons.length != length || ftRemoteAboveGround.length != length) {
+
+			throw new IllegalArgumentException("Link columns differ in length");
+		}
+
+		if (clearances.length < length || (null != obstructed && obstructed.length < length)) {
+
+			throw new IllegalArgumentException("Output length is less than " + length);
+		}
+
+		IntStream.range(0, length).parallel().forEach(i -> {
+
+			clearances[i] = clearance(localLats[i], localLons[i], ftLocalAboveGround[i], remoteLats[i],
+					remoteLons[i], ftRemoteAboveGround[i]);
+
+			if (null != obstructed) {
+
+				obstructed[i] = clearances[i] < 0;
+			}
+		});
+	}
+
+	/**
+	 * Remembers the tile of the previous sample so consecutive samples along a
+	 * path avoid the shared tile cache
+	 */
+	private class Cursor {
+
+		private boolean valid;
+
+		private int cellLat;
+		private int cellLon;
+
+		private HgtTile tile;
+
+		double groundFeet(double latitude, double longitude, double voidFeet) {
+
+			int lat = (int) Math.floor(latitude);
+			int lon = (int) Math.floor(longitude);
+
+			if (!valid || lat != cellLat || lon != cellLon) {
+
+				tile = terrain.getTile(latitude, longitude);
+
+				cellLat = lat;
+				cellLon = lon;
+
+				valid = true;
+			}
+
+			if (null == tile) {
+
+				return 0;
+			}
+
+			double metres = tile.elevationMetres(latitude, longitude);
+
+			return !Double.isNaN(metres) ? metres * Haversine.FEET_IN_METRE : voidFeet;
+		}
+	}
+}
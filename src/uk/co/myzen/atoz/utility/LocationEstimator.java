@@ -0,0 +1,317 @@
+package uk.co.myzen.atoz.utility;
+
+/**
+ * @author howard
+ *
+ *         Estimates the position of many devices from the gateways that heard
+ *         their recent uplinks. Each device keeps a fixed size ring of the
+ *         latest gateway unit vectors and their weights, derived from RSSI and
+ *         SNR, together with running weighted sums, so recording an uplink and
+ *         reading the weighted centroid are both O(1). Samples older than the
+ *         maximum age are dropped as time moves on.
+ *
+ *         Times are whatever epoch milliseconds the caller supplies, so
+ *         replayed or historic uplinks age out relative to each other just as
+ *         live ones do. The ring is kept in arrival order: a sample that
+ *         arrives earlier in time than others already held is only dropped once
+ *         every sample that arrived before it has expired.
+ *
+ *         Devices are addressed by a dense slot number 0...capacity - 1 which
+ *         the caller maps from its own identifiers. All state lives in a few
+ *         primitive arrays sized up front, about 40 + 24 x window bytes per
+ *         device, so a million devices with a window of 8 fit in around 230MB
+ *         with no per-uplink allocation.
+ *
+ *         Updates to different devices run concurrently; each device is guarded
+ *         by one of a fixed set of striped locks.
+ *
+ */
+public class LocationEstimator {
+
+	private static final int STRIPES = 256; // power of two
+
+	private final int capacity;
+
+	private final int window;
+
+	private final long maxAgeMillis;
+
+	// ring of samples, device d owning indices d * window ... (d + 1) * window - 1
+	private final float[] sampleX;
+	private final float[] sampleY;
+	private final float[] sampleZ;
+	private final float[] sampleWeight;
+	private final long[] sampleMillis;
+
+	private final int[] head; // oldest sample
+	private final int[] count;
+
+	private final double[] sumX;
+	private final double[] sumY;
+	private final double[] sumZ;
+	private final double[] sumWeight;
+
+	private final Object[] locks = new Object[STRIPES];
+
+	/**
+	 * @param capacity     number of device slots
+	 * @param window       samples kept per device
+	 * @param maxAgeMillis samples older than this are no longer used
+	 */
+	public LocationEstimator(int capacity, int window, long maxAgeMillis) {
+
+		if (capacity < 0 || window < 1 || (long) capacity * window > Integer.MAX_VALUE - 8 || maxAgeMillis < 0) {
+
+			throw new IllegalArgumentException(
+					"Invalid capacity " + capacity + ", window " + window + " or maximum age " + maxAgeMillis);
+		}
+
+		this.capacity = capacity;
+		this.window = window;
+		this.maxAgeMillis = maxAgeMillis;
+
+		int samples = capacity * window;
+
+		sampleX = new float[samples];
+		sampleY = new float[samples];
+		sampleZ = new float[samples];
+		sampleWeight = new float[samples];
+		sampleMillis = new long[samples];
+
+		head = new int[capacity];
+		count = new int[capacity];
+
+		sumX = new double[capacity];
+		sumY = new double[capacity];
+		sumZ = new double[capacity];
+		sumWeight = new double[capacity];
+
+		for (int i = 0; i < STRIPES; i++) {
+
+			locks[i] = new Object();
+		}
+	}
+
+	/**
+	 * Linear weight for a received uplink. Received power in dBm is converted to a
+	 * linear scale relative to -120 dBm, and a negative SNR reduces it by the same
+	 * number of dB since such uplinks were heard below the noise floor.
+	 */
+	public static float weight(float rssi, float snr) {
+
+		return (float) Math.pow(10, (rssi + Math.min(snr, 0) + 120) / 10);
+	}
+
+	public int getCapacity() {
+
+		return capacity;
+	}
+
+	public int getWindow() {
+
+		return window;
+	}
+
+	/**
+	 * Records that the device was heard by a gateway
+	 *
+	 * @param device     slot number
+	 * @param gateway    location of the gateway
+	 * @param weight     e.g. from {@link #weight(float, float)}
+	 * @param timeMillis when the uplink was received
+	 */
+	public void update(int device, GeoPoint gateway, float weight, long timeMillis) {
+
+		update(device, gateway.getCosLat() * gateway.getCosLon(), gateway.getCosLat() * gateway.getSinLon(),
+				gateway.getSinLat(), weight, timeMillis);
+	}
+
+	/**
+	 * As {@link #update(int, GeoPoint, float, long)} taking the gateway as a unit
+	 * vector such as from {@link Cartesian}
+	 */
+	public void update(int device, double x, double y, double z, float weight, long timeMillis) {
+
+		checkDevice(device);
+
+		if (!(weight > 0)) {
+
+			return;
+		}
+
+		synchronized (locks[device & (STRIPES - 1)]) {
+
+			expire(device, timeMillis);
+
+			if (count[device] == window) {
+
+				evictOldest(device);
+			}
+
+			int index = device * window + (head[device] + count[device]) % window;
+
+			sampleX[index] = (float) x;
+			sampleY[index] = (float) y;
+			sampleZ[index] = (float) z;
+			sampleWeight[index] = weight;
+			sampleMillis[index] = timeMillis;
+
+			sumX[device] += weight * sampleX[index];
+			sumY[device] += weight * sampleY[index];
+			sumZ[device] += weight * sampleZ[index];
+			sumWeight[device] += weight;
+
+			count[device]++;
+		}
+	}
+
+	/**
+	 * Weighted centroid of the device's samples that are still current
+	 *
+	 * @param latLon caller supplied, receives the latitude at index 0 and the
+	 *               longitude at index 1
+	 * @return false when there are no current samples and latLon is untouched
+	 */
+	public boolean estimate(int device, long timeMillis, double[] latLon) {
+
+		checkDevice(device);
+
+		double x;
+		double y;
+		double z;
+
+		synchronized (locks[device & (STRIPES - 1)]) {
+
+			expire(device, timeMillis);
+
+			if (0 == count[device]) {
+
+				return false;
+			}
+
+			x = sumX[device];
+			y = sumY[device];
+			z = sumZ[device];
+		}
+
+		latLon[0] = Haversine.degrees(Math.atan2(z, Math.sqrt((x * x) + (y * y))));
+		latLon[1] = Haversine.degrees(Math.atan2(y, x));
+
+		return true;
+	}
+
+	/**
+	 * @return the weighted mean of the gateway unit vectors as
+	 *         {@link Cartesian#getMean} would give for unweighted points, or null
+	 *         when there are no current samples
+	 */
+	public Cartesian getMean(int device, long timeMillis) {
+
+		checkDevice(device);
+
+		synchronized (locks[device & (STRIPES - 1)]) {
+
+			expire(device, timeMillis);
+
+			if (0 == count[device]) {
+
+				return null;
+			}
+
+			double w = sumWeight[device];
+
+			return new Cartesian(sumX[device] / w, sumY[device] / w, sumZ[device] / w, 0);
+		}
+	}
+
+	public int getSampleCount(int device, long timeMillis) {
+
+		checkDevice(device);
+
+		synchronized (locks[device & (STRIPES - 1)]) {
+
+			expire(device, timeMillis);
+
+			return count[device];
+		}
+	}
+
+	public void clear(int device) {
+
+		checkDevice(device);
+
+		synchronized (locks[device & (STRIPES - 1)]) {
+
+			head[device] = 0;
+			count[device] = 0;
+
+			sumX[device] = sumY[device] = sumZ[device] = sumWeight[device] = 0;
+		}
+	}
+
+	private void expire(int device, long timeMillis) {
+
+		// saturates rather than overflowing for times near Long.MIN_VALUE
+		long oldest = timeMillis < Long.MIN_VALUE + maxAgeMillis ? Long.MIN_VALUE : timeMillis - maxAgeMillis;
+
+		while (count[device] > 0 && sampleMillis[device * window + head[device]] < oldest) {
+
+			evictOldest(device);
+		}
+	}
+
+	private void evictOldest(int device) {
+
+		int index = device * window + head[device];
+
+		float weight = sampleWeight[index];
+
+		sumX[device] -= weight * sampleX[index];
+		sumY[device] -= weight * sampleY[index];
+		sumZ[device] -= weight * sampleZ[index];
+		sumWeight[device] -= weight;
+
+		head[device] = (head[device] + 1) % window;
+
+		count[device]--;
+
+		if (0 == head[device]) {
+
+			// once per trip round the ring rebuild the sums so subtraction cannot drift
+			resum(device);
+		}
+	}
+
+	private void resum(int device) {
+
+		double x = 0;
+		double y = 0;
+		double z = 0;
+		double w = 0;
+
+		for (int i = 0; i < count[device]; i++) {
+
+			int index = device * window + (head[device] + i) % window;
+
+			float weight = sampleWeight[index];
+
+			x += weight * sampleX[index];
+			y += weight * sampleY[index];
+			z += weight * sampleZ[index];
+			w += weight;
+		}
+
+		sumX[device] = x;
+		sumY[device] = y;
+		sumZ[device] = z;
+		sumWeight[device] = w;
+	}
+
+	private void checkDevice(int device) {
+
+		if (device < 0 || device >= capacity) {
+
+			throw new IndexOutOfBoundsException("Device " + device + " capacity " + capacity);
+		}
+	}
+}
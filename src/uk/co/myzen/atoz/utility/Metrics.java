@@ -0,0 +1,102 @@
+package uk.co.myzen.atoz.utility;
+
+/**
+ * @author howard
+ *
+ *         Optional instrumentation of the Haversine, Cartesian and Airtime entry
+ *         points. It is off unless the JVM is started with
+ *         -Duk.co.myzen.atoz.utility.metrics=true; the flag is read once into a
+ *         static final field, so when it is off the JIT removes the calls and
+ *         they cost nothing. When it is on, counts and timings go to an
+ *         {@link InMemoryMetrics} unless another {@link MetricsSink} is set.
+ *
+ */
+public final class Metrics {
+
+	public static final String PROPERTY = "uk.co.myzen.atoz.utility.metrics";
+
+	/**
+	 * What is recorded, as a count or as a latency in nanoseconds
+	 */
+	public enum Metric {
+
+		HAVERSINE_DISTANCE, // latency
+		HAVERSINE_BEARING, // latency
+		HAVERSINE_DISTANCES_BATCH, // latency of a whole batch
+
+		CARTESIAN_MEAN, // latency
+
+		AIRTIME_GET_INSTANCE, // count
+		AIRTIME_INSTANCE_REJECTED, // count of invalid or unsupported combinations
+		AIRTIME_PAYLOAD_REJECTED, // count of AirtimeExceptions for payload size
+		AIRTIME_AIRTIME_REJECTED, // count of AirtimeExceptions for airtime
+		AIRTIME_ESTIMATE, // count of payload sizes looked up, including try and batch calls
+
+		TIME_ON_AIR_TABLE_BUILT, // count of tables memoised
+	};
+
+	private static final boolean ENABLED = Boolean.getBoolean(PROPERTY);
+
+	private static volatile MetricsSink sink = ENABLED ? new InMemoryMetrics() : null;
+
+	private Metrics() {
+	}
+
+	public static boolean isEnabled() {
+
+		return ENABLED;
+	}
+
+	/**
+	 * @return where metrics are recorded, null when disabled
+	 */
+	public static MetricsSink getSink() {
+
+		return sink;
+	}
+
+	/**
+	 * Replaces the sink, e.g. with an adapter to another metrics library
+	 *
+	 * @throws IllegalStateException when metrics are disabled, as nothing would be
+	 *                               recorded
+	 */
+	public static void setSink(MetricsSink sink) {
+
+		if (!ENABLED) {
+
+			throw new IllegalStateException("Metrics are disabled, set -D" + PROPERTY + "=true to enable them");
+		}
+
+		if (null == sink) {
+
+			throw new IllegalArgumentException("Sink is null");
+		}
+
+		Metrics.sink = sink;
+	}
+
+	static void increment(Metric metric) {
+
+		if (ENABLED) {
+
+			sink.increment(metric);
+		}
+	}
+
+	/**
+	 * @return a start time to pass to {@link #stop(Metric, long)}
+	 */
+	static long start() {
+
+		return ENABLED ? System.nanoTime() : 0;
+	}
+
+	static void stop(Metric metric, long start) {
+
+		if (ENABLED) {
+
+			sink.recordNanos(metric, System.nanoTime() - start);
+		}
+	}
+}
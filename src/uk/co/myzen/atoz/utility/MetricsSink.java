@@ -0,0 +1,19 @@
+package uk.co.myzen.atoz.utility;
+
+import uk.co.myzen.atoz.utility.Metrics.Metric;
+
+/**
+ * @author howard
+ *
+ *         Receives the counts and timings recorded by the instrumented entry
+ *         points once {@link Metrics} is enabled. Implementations are called
+ *         from every thread that uses the utilities, so must be thread safe and
+ *         should not block.
+ *
+ */
+public interface MetricsSink {
+
+	void increment(Metric metric);
+
+	void recordNanos(Metric metric, long nanos);
+}
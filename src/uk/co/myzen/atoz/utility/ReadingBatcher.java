@@ -0,0 +1,273 @@
+package uk.co.myzen.atoz.utility;
+
+import uk.co.myzen.atoz.utility.Airtime.AirtimeException;
+
+/**
+ * @author howard
+ *
+ *         Packs an ordered queue of readings into frames so that their total
+ *         time on air is least. Airtime is a step function of payload size, so
+ *         it is often cheaper to hold a reading back for the next frame or to
+ *         split a run of readings unevenly. The exact best split is found by
+ *         dynamic programming over the queue: the cheapest way to send the first
+ *         i readings is the cheapest over every last frame ending at i that
+ *         fits in the largest payload, each frame's airtime being looked up in a
+ *         table taken from {@link Airtime} once at construction.
+ *
+ *         Readings keep their order and are never split across frames. Each
+ *         frame may carry a fixed number of overhead bytes, e.g. a reading
+ *         count.
+ *
+ */
+public class ReadingBatcher {
+
+	/**
+	 * Frame boundaries chosen for a queue of readings
+	 */
+	public static class Plan {
+
+		private final int[] frameEnds;
+
+		private final long tenthsMsAirtime;
+
+		private Plan(int[] frameEnds, long tenthsMsAirtime) {
+
+			this.frameEnds = frameEnds;
+			this.tenthsMsAirtime = tenthsMsAirtime;
+		}
+
+		public int getFrameCount() {
+
+			return frameEnds.length;
+		}
+
+		/**
+		 * @return index after the last reading of the frame, so frame f carries
+		 *         readings getFrameEnd(f - 1) ... getFrameEnd(f) - 1
+		 */
+		public int getFrameEnd(int frame) {
+
+			return frameEnds[frame];
+		}
+
+		/**
+		 * @return the end index of every frame, shared rather than copied
+		 */
+		public int[] getFrameEnds() {
+
+			return frameEnds;
+		}
+
+		public long getTenthsMsAirtime() {
+
+			return tenthsMsAirtime;
+		}
+
+		public float getMsAirtime() {
+
+			return tenthsMsAirtime / 10f;
+		}
+	}
+
+	private final Airtime airtime;
+
+	private final int frameOverhead;
+
+	private final int maxReadingBytes; // payload left for readings in a frame
+
+	private final int[] tenthsMsAirtime; // by bytes of readings in a frame
+
+	public ReadingBatcher(Airtime airtime) throws AirtimeException {
+
+		this(airtime, 0);
+	}
+
+	/**
+	 * @param frameOverhead bytes added to every frame besides the readings
+	 */
+	public ReadingBatcher(Airtime airtime, int frameOverhead) throws AirtimeException {
+
+		this(airtime, frameOverhead, frameAirtimes(airtime, frameOverhead));
+	}
+
+	/**
+	 * Costs each frame from the table rather than from the airtime, so that the
+	 * planning can be tested on step functions Airtime does not tabulate
+	 *
+	 * @param tenthsMsAirtime cost of a frame by bytes of readings, its length
+	 *                        limiting the readings in a frame
+	 */
+	ReadingBatcher(Airtime airtime, int frameOverhead, int[] tenthsMsAirtime) {
+
+		this.airtime = airtime;
+		this.frameOverhead = frameOverhead;
+		this.tenthsMsAirtime = tenthsMsAirtime;
+
+		maxReadingBytes = tenthsMsAirtime.length - 1;
+	}
+
+	private static int[] frameAirtimes(Airtime airtime, int frameOverhead) throws AirtimeException {
+
+		if (frameOverhead < 0 || frameOverhead > airtime.getMaximumPayloadSize()) {
+
+			throw new IllegalArgumentException("Invalid frame overhead " + frameOverhead);
+		}
+
+		int[] tenthsMsAirtime = new int[airtime.getMaximumPayloadSize() - frameOverhead + 1];
+
+		for (int bytes = 0; bytes < tenthsMsAirtime.length; bytes++) {
+
+			tenthsMsAirtime[bytes] = airtime.tenthsMsAirtimeEstimate(bytes + frameOverhead);
+		}
+
+		return tenthsMsAirtime;
+	}
+
+	public Airtime getAirtime() {
+
+		return airtime;
+	}
+
+	public int getFrameOverhead() {
+
+		return frameOverhead;
+	}
+
+	/**
+	 * @param sizes bytes of each reading in the order they must be sent
+	 * @return the frames with the least total airtime, fewest frames among equals
+	 * @throws AirtimeException when a reading does not fit in a frame
+	 */
+	public Plan plan(int[] sizes) throws AirtimeException {
+
+		return plan(sizes, null, Long.MAX_VALUE);
+	}
+
+	/**
+	 * As {@link #plan(int[])} where no reading may wait more than msMaxLatency for
+	 * the last reading of its frame to arrive
+	 *
+	 * @param timesMillis arrival of each reading, in non-decreasing order
+	 */
+	public Plan plan(int[] sizes, long[] timesMillis, long msMaxLatency) throws AirtimeException {
+
+		int n = check(sizes, timesMillis);
+
+		// cheapest airtime and frame count for the first i readings, with the start of
+		// the last frame
+		long[] cost = new long[n + 1];
+		int[] frames = new int[n + 1];
+		int[] start = new int[n + 1];
+
+		for (int i = 1; i <= n; i++) {
+
+			cost[i] = Long.MAX_VALUE;
+
+			int bytes = 0;
+
+			for (int j = i - 1; j >= 0; j--) {
+
+				bytes += sizes[j];
+
+				if (bytes > maxReadingBytes
+						|| (null != timesMillis && timesMillis[i - 1] - timesMillis[j] > msMaxLatency)) {
+
+					break;
+				}
+
+				long candidate = cost[j] + tenthsMsAirtime[bytes];
+
+				if (candidate < cost[i] || (candidate == cost[i] && frames[j] + 1 < frames[i])) {
+
+					cost[i] = candidate;
+					frames[i] = frames[j] + 1;
+					start[i] = j;
+				}
+			}
+		}
+
+		int[] frameEnds = new int[frames[n]];
+
+		for (int i = n, f = frames[n] - 1; i > 0; i = start[i], f--) {
+
+			frameEnds[f] = i;
+		}
+
+		return new Plan(frameEnds, cost[n]);
+	}
+
+	/**
+	 * Fills each frame as far as the payload size and latency allow, which gives
+	 * the fewest frames though not always the least airtime
+	 */
+	public Plan fewestFrames(int[] sizes, long[] timesMillis, long msMaxLatency) throws AirtimeException {
+
+		int n = check(sizes, timesMillis);
+
+		int[] ends = new int[n];
+
+		int count = 0;
+
+		long total = 0;
+
+		for (int j = 0; j < n;) {
+
+			int bytes = 0;
+
+			int i = j;
+
+			while (i < n && bytes + sizes[i] <= maxReadingBytes
+					&& (null == timesMillis || timesMillis[i] - timesMillis[j] <= msMaxLatency)) {
+
+				bytes += sizes[i++];
+			}
+
+			total += tenthsMsAirtime[bytes];
+
+			ends[count++] = i;
+
+			j = i;
+		}
+
+		int[] frameEnds = new int[count];
+
+		System.arraycopy(ends, 0, frameEnds, 0, count);
+
+		return new Plan(frameEnds, total);
+	}
+
+	/**
+	 * @return the number of readings
+	 */
+	private int check(int[] sizes, long[] timesMillis) throws AirtimeException {
+
+		if (null != timesMillis && timesMillis.length != sizes.length) {
+
+			throw new IllegalArgumentException(
+					"Times length " + timesMillis.length + " differs from sizes length " + sizes.length);
+		}
+
+		for (int i = 0; i < sizes.length; i++) {
+
+			if (sizes[i] < 0) {
+
+				throw new IllegalArgumentException("Invalid reading size " + sizes[i] + " at " + i);
+			}
+
+			if (sizes[i] > maxReadingBytes) {
+
+				// context as Airtime gives for an oversized payload
+				throw new AirtimeException("Invalid reading size " + sizes[i] + " at " + i + " for " + airtime.getBand()
+						+ " " + airtime.getBandWidth() + " " + airtime.getSpreadingFactor() + " Needs to be in range 0 to "
+						+ maxReadingBytes, airtime.getMaxAirtime());
+			}
+
+			if (null != timesMillis && i > 0 && timesMillis[i] < timesMillis[i - 1]) {
+
+				throw new IllegalArgumentException("Times out of order at " + i);
+			}
+		}
+
+		return sizes.length;
+	}
+}
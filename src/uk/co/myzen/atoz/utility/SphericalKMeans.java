@@ -0,0 +1,284 @@
+package uk.co.myzen.atoz.utility;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+/**
+ * @author howard
+ *
+ *         Spherical k-means over the unit vectors in a {@link CartesianBuffer},
+ *         as produced by {@link Cartesian#Cartesian(double, double, int)}. Each
+ *         point joins the centroid with the largest dot product, i.e. the
+ *         smallest great-circle distance, and each centroid is the normalised
+ *         sum of its points. Seeding uses k-means++ from a fixed seed so runs
+ *         are reproducible.
+ *
+ *         The assignment step is split across the common fork-join pool, each
+ *         task returning partial per-cluster sums that are merged, so the only
+ *         per-iteration allocation is O(k) per task.
+ *
+ */
+public class SphericalKMeans {
+
+	public static final int DEFAULT_MAX_ITERATIONS = 100;
+
+	private static final int LEAF_SIZE = 1 << 13;
+
+	private final int k;
+
+	private final int maxIterations;
+
+	private final long seed;
+
+	public SphericalKMeans(int k) {
+
+		this(k, DEFAULT_MAX_ITERATIONS, 0);
+	}
+
+	public SphericalKMeans(int k, int maxIterations, long seed) {
+
+		if (k < 1 || maxIterations < 1) {
+
+			throw new IllegalArgumentException("Invalid k " + k + " or iterations " + maxIterations);
+		}
+
+		this.k = k;
+		this.maxIterations = maxIterations;
+		this.seed = seed;
+	}
+
+	public ClusterResult cluster(CartesianBuffer points) {
+
+		int size = points.size();
+
+		int clusters = Math.min(k, size);
+
+		double[] centroids = seed(points, clusters);
+
+		int[] labels = new int[size];
+
+		Arrays.fill(labels, ClusterResult.NOISE);
+
+		int iteration = 0;
+
+		while (iteration < maxIterations) {
+
+			iteration++;
+
+			Partial total = ForkJoinPool.commonPool()
+					.invoke(new AssignTask(points, centroids, clusters, labels, 0, size));
+
+			for (int c = 0; c < clusters; c++) {
+
+				double x = total.sums[c * 3];
+				double y = total.sums[c * 3 + 1];
+				double z = total.sums[c * 3 + 2];
+
+				double norm = Math.sqrt(x * x + y * y + z * z);
+
+				// an emptied cluster keeps its previous centroid
+				if (norm > 0) {
+
+					centroids[c * 3] = x / norm;
+					centroids[c * 3 + 1] = y / norm;
+					centroids[c * 3 + 2] = z / norm;
+				}
+			}
+
+			if (0 == total.changed) {
+
+				break;
+			}
+		}
+
+		CartesianBuffer result = new CartesianBuffer(clusters);
+
+		for (int c = 0; c < clusters; c++) {
+
+			result.add(centroids[c * 3], centroids[c * 3 + 1], centroids[c * 3 + 2], 0);
+		}
+
+		return new ClusterResult(labels, result, iteration);
+	}
+
+	/**
+	 * k-means++ seeding on 1 - cos of the angle between points
+	 */
+	private double[] seed(final CartesianBuffer points, int clusters) {
+
+		final int size = points.size();
+
+		double[] centroids = new double[clusters * 3];
+
+		if (0 == clusters) {
+
+			return centroids;
+		}
+
+		SplittableRandom random = new SplittableRandom(seed);
+
+		final double[] nearest = new double[size];
+
+		Arrays.fill(nearest, Double.MAX_VALUE);
+
+		int chosen = random.nextInt(size);
+
+		for (int c = 0; c < clusters; c++) {
+
+			final double cx = points.getX(chosen);
+			final double cy = points.getY(chosen);
+			final double cz = points.getZ(chosen);
+
+			centroids[c * 3] = cx;
+			centroids[c * 3 + 1] = cy;
+			centroids[c * 3 + 2] = cz;
+
+			IntStream.range(0, size).parallel().forEach(i -> {
+
+				double d = 1 - (points.getX(i) * cx + points.getY(i) * cy + points.getZ(i) * cz);
+
+				if (d < nearest[i]) {
+
+					nearest[i] = d;
+				}
+			});
+
+			double total = 0;
+
+			for (int i = 0; i < size; i++) {
+
+				total += nearest[i];
+			}
+
+			if (!(total > 0)) {
+
+				// every point coincides with a centroid already
+				chosen = random.nextInt(size);
+
+				continue;
+			}
+
+			double target = random.nextDouble() * total;
+
+			chosen = size - 1;
+
+			for (int i = 0; i < size; i++) {
+
+				target -= nearest[i];
+
+				if (target <= 0) {
+
+					chosen = i;
+
+					break;
+				}
+			}
+		}
+
+		return centroids;
+	}
+
+	private static class Partial {
+
+		final double[] sums;
+
+		int changed;
+
+		Partial(int clusters) {
+
+			sums = new double[clusters * 3];
+		}
+
+		Partial merge(Partial other) {
+
+			for (int i = 0; i < sums.length; i++) {
+
+				sums[i] += other.sums[i];
+			}
+
+			changed += other.changed;
+
+			return this;
+		}
+	}
+
+	private static class AssignTask extends RecursiveTask<Partial> {
+
+		private static final long serialVersionUID = -4475410419964396787L;
+
+		private final CartesianBuffer points;
+		private final double[] centroids;
+		private final int clusters;
+		private final int[] labels;
+
+		private final int from;
+		private final int to;
+
+		AssignTask(CartesianBuffer points, double[] centroids, int clusters, int[] labels, int from, int to) {
+
+			this.points = points;
+			this.centroids = centroids;
+			this.clusters = clusters;
+			this.labels = labels;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Partial compute() {
+
+			if (to - from > LEAF_SIZE) {
+
+				int middle = (from + to) >>> 1;
+
+				AssignTask left = new AssignTask(points, centroids, clusters, labels, from, middle);
+
+				left.fork();
+
+				Partial right = new AssignTask(points, centroids, clusters, labels, middle, to).compute();
+
+				return left.join().merge(right);
+			}
+
+			Partial partial = new Partial(clusters);
+
+			for (int i = from; i < to; i++) {
+
+				double x = points.getX(i);
+				double y = points.getY(i);
+				double z = points.getZ(i);
+
+				int best = 0;
+
+				double bestDot = Double.NEGATIVE_INFINITY;
+
+				for (int c = 0; c < clusters; c++) {
+
+					double dot = x * centroids[c * 3] + y * centroids[c * 3 + 1] + z * centroids[c * 3 + 2];
+
+					if (dot > bestDot) {
+
+						bestDot = dot;
+						best = c;
+					}
+				}
+
+				if (labels[i] != best) {
+
+					labels[i] = best;
+
+					partial.changed++;
+				}
+
+				partial.sums[best * 3] += x;
+				partial.sums[best * 3 + 1] += y;
+				partial.sums[best * 3 + 2] += z;
+			}
+
+			return partial;
+		}
+	}
+}
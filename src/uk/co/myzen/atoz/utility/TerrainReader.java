@@ -0,0 +1,108 @@
+package uk.co.myzen.atoz.utility;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author howard
+ *
+ *         Elevation lookups over a directory of {@link HgtTile} files. At most
+ *         a bounded number of tiles are held open, least recently used first
+ *         out. Evicted mappings are released by the garbage collector as the
+ *         JDK offers no explicit unmap. Tiles missing from the directory (e.g.
+ *         over the sea) read as sea level. Safe for concurrent use.
+ *
+ */
+public class TerrainReader {
+
+	public static final int DEFAULT_MAX_OPEN_TILES = 64;
+
+	private final Path directory;
+
+	private final Map<String, HgtTile> tiles;
+
+	public TerrainReader(Path directory) {
+
+		this(directory, DEFAULT_MAX_OPEN_TILES);
+	}
+
+	public TerrainReader(Path directory, final int maxOpenTiles) {
+
+		if (maxOpenTiles < 1) {
+
+			throw new IllegalArgumentException("Invalid tile limit " + maxOpenTiles);
+		}
+
+		this.directory = directory;
+
+		tiles = new LinkedHashMap<String, HgtTile>(maxOpenTiles * 2, 0.75f, true) {
+
+			private static final long serialVersionUID = -3119430146711946254L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, HgtTile> eldest) {
+
+				return size() > maxOpenTiles;
+			}
+		};
+	}
+
+	/**
+	 * @return the tile containing the location or null when there is no file for
+	 *         it
+	 */
+	public synchronized HgtTile getTile(double latitude, double longitude) {
+
+		String name = HgtTile.fileName(latitude, longitude);
+
+		if (tiles.containsKey(name)) {
+
+			return tiles.get(name);
+		}
+
+		HgtTile tile = null;
+
+		Path file = directory.resolve(name);
+
+		if (Files.isReadable(file)) {
+
+			try {
+
+				tile = new HgtTile(file, (int) Math.floor(latitude), (int) Math.floor(longitude));
+
+			} catch (IOException e) {
+
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		tiles.put(name, tile);
+
+		return tile;
+	}
+
+	/**
+	 * @return metres above sea level, 0 where there is no tile and NaN for a void
+	 *         in the data
+	 */
+	public double elevationMetres(double latitude, double longitude) {
+
+		HgtTile tile = getTile(latitude, longitude);
+
+		return null == tile ? 0 : tile.elevationMetres(latitude, longitude);
+	}
+
+	public double elevationFeet(double latitude, double longitude) {
+
+		return elevationMetres(latitude, longitude) * Haversine.FEET_IN_METRE;
+	}
+
+	public synchronized int getOpenTiles() {
+
+		return tiles.size();
+	}
+}
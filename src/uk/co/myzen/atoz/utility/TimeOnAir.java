@@ -0,0 +1,242 @@
+package uk.co.myzen.atoz.utility;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import uk.co.myzen.atoz.utility.Airtime.AirtimeException;
+import uk.co.myzen.atoz.utility.Metrics.Metric;
+
+/**
+ * @author howard
+ *
+ *         LoRa time on air from the Semtech formula for any combination of
+ *         spreading factor (SF5 to SF12), bandwidth, coding rate, preamble
+ *         length, header mode, CRC and low data rate optimisation, so it is not
+ *         limited to the bands tabulated by {@link Airtime}.
+ *
+ *         The airtime of every PHY payload size from 0 to
+ *         {@value #MAX_PAYLOAD_SIZE} is computed once per configuration and the
+ *         instance memoised, so each query is an array lookup. Payload sizes
+ *         here are PHY payloads: for LoRaWAN add the 13 bytes of MAC overhead
+ *         to the application payload, which reproduces the {@link Airtime}
+ *         tables.
+ *
+ */
+public final class TimeOnAir {
+
+	public static final int MAX_PAYLOAD_SIZE = 255;
+
+	public static final int DEFAULT_CODING_RATE = 1; // 4/5
+
+	public static final int DEFAULT_PREAMBLE_LENGTH = 8;
+
+	public static final int LORAWAN_OVERHEAD = 13;
+
+	private static final double MS_LOW_DATA_RATE_SYMBOL = 16;
+
+	public enum LowDataRateOptimise {
+
+		AUTO, ON, OFF
+	};
+
+	private static final ConcurrentMap<Long, TimeOnAir> instances = new ConcurrentHashMap<Long, TimeOnAir>();
+
+	private final int spreadingFactor;
+	private final int bandWidth;
+	private final int codingRate;
+	private final int preambleLength;
+	private final boolean explicitHeader;
+	private final boolean crc;
+	private final boolean lowDataRateOptimised;
+
+	private final double msSymbol;
+
+	private final double[] msAirtime;
+
+	/**
+	 * LoRaWAN defaults: coding rate 4/5, 8 symbol preamble, explicit header, CRC
+	 * on and low data rate optimisation when a symbol lasts 16 mS or more
+	 */
+	public static TimeOnAir getInstance(int sf, int bw) throws AirtimeException {
+
+		return getInstance(sf, bw, DEFAULT_CODING_RATE, DEFAULT_PREAMBLE_LENGTH, true, true,
+				LowDataRateOptimise.AUTO);
+	}
+
+	/**
+	 * @param sf             spreading factor 5 to 12
+	 * @param bw             bandwidth in Hz, any positive value such as 1625000
+	 *                       for 2.4 GHz LoRa
+	 * @param codingRate     1 to 4 for 4/5 to 4/8
+	 * @param preambleLength programmed preamble symbols
+	 * @param explicitHeader false for implicit header mode
+	 * @param crc            true when the payload CRC is present
+	 */
+	public static TimeOnAir getInstance(int sf, int bw, int codingRate, int preambleLength, boolean explicitHeader,
+			boolean crc, LowDataRateOptimise ldro) throws AirtimeException {
+
+		if (sf < 5 || sf > 12) {
+
+			throw new AirtimeException("Invalid SF " + sf, -1f);
+		}
+
+		if (bw <= 0) {
+
+			throw new AirtimeException("Invalid BW " + bw, -1f);
+		}
+
+		if (codingRate < 1 || codingRate > 4) {
+
+			throw new AirtimeException("Invalid coding rate " + codingRate, -1f);
+		}
+
+		if (preambleLength < 0 || preambleLength > 0xffff) {
+
+			throw new AirtimeException("Invalid preamble length " + preambleLength, -1f);
+		}
+
+		// 4 + 31 + 3 + 16 + 1 + 1 + 2 bits, so any positive bandwidth fits
+		long key = ((((((long) sf << 31 | bw) << 3 | codingRate) << 16 | preambleLength) << 1 | (explicitHeader ? 1 : 0))
+				<< 1 | (crc ? 1 : 0)) << 2 | ldro.ordinal();
+
+		TimeOnAir instance = instances.get(key);
+
+		if (null == instance) {
+
+			instance = new TimeOnAir(sf, bw, codingRate, preambleLength, explicitHeader, crc, ldro);
+
+			TimeOnAir existing = instances.putIfAbsent(key, instance);
+
+			if (null == existing) {
+
+				// counted once per memo entry even when racing threads each build one
+				Metrics.increment(Metric.TIME_ON_AIR_TABLE_BUILT);
+
+			} else {
+
+				instance = existing;
+			}
+		}
+
+		return instance;
+	}
+
+	private TimeOnAir(int sf, int bw, int codingRate, int preambleLength, boolean explicitHeader, boolean crc,
+			LowDataRateOptimise ldro) {
+
+		this.spreadingFactor = sf;
+		this.bandWidth = bw;
+		this.codingRate = codingRate;
+		this.preambleLength = preambleLength;
+		this.explicitHeader = explicitHeader;
+		this.crc = crc;
+
+		msSymbol = 1000.0 * (1 << sf) / bw;
+
+		switch (ldro) {
+
+		case ON:
+			lowDataRateOptimised = true;
+			break;
+
+		case OFF:
+			lowDataRateOptimised = false;
+			break;
+
+		default:
+			lowDataRateOptimised = msSymbol >= MS_LOW_DATA_RATE_SYMBOL;
+			break;
+		}
+
+		msAirtime = new double[MAX_PAYLOAD_SIZE + 1];
+
+		for (int payloadSize = 0; payloadSize <= MAX_PAYLOAD_SIZE; payloadSize++) {
+
+			msAirtime[payloadSize] = msSymbol * symbols(payloadSize);
+		}
+	}
+
+	/**
+	 * @return symbols on air including the preamble, which may be fractional
+	 */
+	private double symbols(int payloadSize) {
+
+		// SF5 and SF6 have a longer sync word and no extra 8 bits in the first block
+		boolean shortSf = spreadingFactor < 7;
+
+		double preamble = preambleLength + (shortSf ? 6.25 : 4.25);
+
+		int bits = 8 * payloadSize + (crc ? 16 : 0) - 4 * spreadingFactor + (shortSf ? 0 : 8)
+				+ (explicitHeader ? 20 : 0);
+
+		int bitsPerBlock = 4 * (spreadingFactor - (lowDataRateOptimised ? 2 : 0));
+
+		int blocks = bits > 0 ? (bits + bitsPerBlock - 1) / bitsPerBlock : 0;
+
+		return preamble + 8 + blocks * (codingRate + 4);
+	}
+
+	public int getSpreadingFactor() {
+
+		return spreadingFactor;
+	}
+
+	public int getBandWidth() {
+
+		return bandWidth;
+	}
+
+	public int getCodingRate() {
+
+		return codingRate;
+	}
+
+	public int getPreambleLength() {
+
+		return preambleLength;
+	}
+
+	public boolean isExplicitHeader() {
+
+		return explicitHeader;
+	}
+
+	public boolean isCrc() {
+
+		return crc;
+	}
+
+	public boolean isLowDataRateOptimised() {
+
+		return lowDataRateOptimised;
+	}
+
+	public double getMsSymbol() {
+
+		return msSymbol;
+	}
+
+	/**
+	 * @param payloadSize PHY payload bytes, 0 to {@value #MAX_PAYLOAD_SIZE}
+	 */
+	public double msTimeOnAir(int payloadSize) throws AirtimeException {
+
+		if (payloadSize < 0 || payloadSize > MAX_PAYLOAD_SIZE) {
+
+			throw new AirtimeException(() -> "Invalid payload size " + payloadSize + " for SF" + spreadingFactor
+					+ " BW " + bandWidth + " Needs to be in range 0 to " + MAX_PAYLOAD_SIZE,
+					(float) msAirtime[MAX_PAYLOAD_SIZE]);
+		}
+
+		return msAirtime[payloadSize];
+	}
+
+	/**
+	 * @return time on air rounded to the nearest tenth of a millisecond, as
+	 *         tabulated by {@link Airtime#tenthsMsAirtimeEstimate(int)}
+	 */
+	public int tenthsMsTimeOnAir(int payloadSize) throws AirtimeException {
+
+		return (int) Math.round(10 * msTimeOnAir(payloadSize));
+	}
+}
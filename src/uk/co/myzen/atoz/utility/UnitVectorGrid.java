@@ -0,0 +1,189 @@
+package uk.co.myzen.atoz.utility;
+
+/**
+ * @author howard
+ *
+ *         Static uniform grid over the unit vectors of a
+ *         {@link CartesianBuffer} for fixed radius neighbour queries. Unlike
+ *         {@link GeoIndex} it holds only primitive arrays: occupied cells are
+ *         found through an open addressing hash of cell keys and their point
+ *         indices are stored contiguously, so millions of points cost a few
+ *         ints each. With the cell edge at least the query chord, every
+ *         neighbour lies in the 27 cells around the query point.
+ *
+ */
+class UnitVectorGrid {
+
+	interface Visitor {
+
+		void visit(int index);
+	}
+
+	private final CartesianBuffer points;
+
+	private final double chordSq;
+
+	private final double cellSize;
+
+	private final int cellsPerAxis;
+
+	private final long[] tableKeys; // cell key + 1, 0 marks an empty slot
+	private final int[] tableCells;
+
+	private final int mask;
+
+	private final int[] cellStart; // cell c owns order[cellStart[c]] ... order[cellStart[c + 1] - 1]
+
+	private final int[] order;
+
+	/**
+	 * @param chord largest straight line distance through the unit sphere between
+	 *              neighbours
+	 */
+	UnitVectorGrid(CartesianBuffer points, double chord) {
+
+		this.points = points;
+
+		chordSq = chord * chord;
+
+		cellsPerAxis = (int) Math.max(1, Math.min(Math.floor(2 / chord), 1 << 20));
+
+		cellSize = 2.0 / cellsPerAxis;
+
+		int size = points.size();
+
+		int tableSize = Integer.highestOneBit(Math.max(2, size) * 2 - 1) << 1;
+
+		tableKeys = new long[tableSize];
+		tableCells = new int[tableSize];
+
+		mask = tableSize - 1;
+
+		int[] pointCells = new int[size];
+
+		int cells = 0;
+
+		for (int i = 0; i < size; i++) {
+
+			long key = key(cell(points.getX(i)), cell(points.getY(i)), cell(points.getZ(i)));
+
+			int slot = slot(key);
+
+			if (0 == tableKeys[slot]) {
+
+				tableKeys[slot] = key + 1;
+				tableCells[slot] = cells++;
+			}
+
+			pointCells[i] = tableCells[slot];
+		}
+
+		// counting sort of the points by cell
+
+		cellStart = new int[cells + 1];
+
+		for (int i = 0; i < size; i++) {
+
+			cellStart[pointCells[i] + 1]++;
+		}
+
+		for (int c = 0; c < cells; c++) {
+
+			cellStart[c + 1] += cellStart[c];
+		}
+
+		int[] next = new int[cells];
+
+		System.arraycopy(cellStart, 0, next, 0, cells);
+
+		order = new int[size];
+
+		for (int i = 0; i < size; i++) {
+
+			order[next[pointCells[i]]++] = i;
+		}
+	}
+
+	/**
+	 * Calls the visitor with every point within the chord of point index,
+	 * including the point itself
+	 */
+	void neighbours(int index, Visitor visitor) {
+
+		double x = points.getX(index);
+		double y = points.getY(index);
+		double z = points.getZ(index);
+
+		int cx = cell(x);
+		int cy = cell(y);
+		int cz = cell(z);
+
+		for (int i = Math.max(0, cx - 1); i <= Math.min(cellsPerAxis - 1, cx + 1); i++) {
+
+			for (int j = Math.max(0, cy - 1); j <= Math.min(cellsPerAxis - 1, cy + 1); j++) {
+
+				for (int k = Math.max(0, cz - 1); k <= Math.min(cellsPerAxis - 1, cz + 1); k++) {
+
+					long key = key(i, j, k);
+
+					int slot = slot(key);
+
+					if (0 == tableKeys[slot]) {
+
+						continue;
+					}
+
+					int c = tableCells[slot];
+
+					for (int p = cellStart[c]; p < cellStart[c + 1]; p++) {
+
+						int other = order[p];
+
+						double dx = points.getX(other) - x;
+						double dy = points.getY(other) - y;
+						double dz = points.getZ(other) - z;
+
+						if (dx * dx + dy * dy + dz * dz <= chordSq) {
+
+							visitor.visit(other);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the slot holding the key or the empty slot where it belongs
+	 */
+	private int slot(long key) {
+
+		int slot = (int) mix(key) & mask;
+
+		while (0 != tableKeys[slot] && tableKeys[slot] != key + 1) {
+
+			slot = (slot + 1) & mask;
+		}
+
+		return slot;
+	}
+
+	private static long mix(long key) {
+
+		key *= 0x9E3779B97F4A7C15L;
+
+		return key ^ (key >>> 32);
+	}
+
+	private int cell(double coordinate) {
+
+		int index = (int) Math.floor((coordinate + 1) / cellSize);
+
+		return index < 0 ? 0 : index >= cellsPerAxis ? cellsPerAxis - 1 : index;
+	}
+
+	private long key(int i, int j, int k) {
+
+		return ((long) i * cellsPerAxis + j) * cellsPerAxis + k;
+	}
+}
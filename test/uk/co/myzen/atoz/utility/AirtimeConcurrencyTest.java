@@ -0,0 +1,149 @@
+package uk.co.myzen.atoz.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import uk.co.myzen.atoz.utility.Airtime.AirtimeException;
+import uk.co.myzen.atoz.utility.Airtime.Band;
+
+/**
+ * @author howard
+ *
+ *         Many threads looking up {@link Airtime} instances and querying them at
+ *         once must see exactly what a single thread sees afterwards. Run
+ *         alone, the threads also race to initialise the class.
+ *
+ */
+public class AirtimeConcurrencyTest {
+
+	private static final int THREADS = 16;
+
+	private static final int ROUNDS = 20;
+
+	private static final int[] BANDWIDTHS = { 125000, 250000, 500000, 1 };
+
+	/**
+	 * Every lookup, including unsupported ones, and every forward and inverse
+	 * query of each instance, written out as text
+	 */
+	private static String workload() {
+
+		StringBuilder sb = new StringBuilder();
+
+		for (Band band : Band.values()) {
+
+			for (int bw : BANDWIDTHS) {
+
+				for (int sf = 6; sf <= 13; sf++) {
+
+					Airtime airtime;
+
+					try {
+
+						airtime = Airtime.getInstance(band, bw, sf);
+
+					} catch (AirtimeException e) {
+
+						sb.append(e.getMessage()).append('\n');
+
+						continue;
+					}
+
+					sb.append(airtime.getBand()).append(airtime.getBandWidth()).append(airtime.getSpreadingFactor())
+							.append('\n');
+
+					for (int payloadSize = -1; payloadSize <= airtime.getMaximumPayloadSize() + 1; payloadSize++) {
+
+						try {
+
+							sb.append(airtime.msAirtimeEstimate(payloadSize)).append(',');
+
+						} catch (AirtimeException e) {
+
+							sb.append(e.getMessage()).append(e.getContext()).append(',');
+						}
+					}
+
+					for (float ms = 0; ms < 4000; ms += 9.7f) {
+
+						sb.append(airtime.getMinPayloadSizeForAirtime(ms)).append('/');
+
+						try {
+
+							sb.append(airtime.getMaxPayloadSizeForAirtime(ms)).append(' ');
+
+						} catch (AirtimeException e) {
+
+							sb.append(e.getMessage()).append(' ');
+						}
+					}
+
+					sb.append('\n');
+				}
+			}
+		}
+
+		return sb.toString();
+	}
+
+	@Test
+	public void concurrentQueriesMatchSingleThread() throws Exception {
+
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+		try {
+
+			CyclicBarrier barrier = new CyclicBarrier(THREADS);
+
+			List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+
+			for (int t = 0; t < THREADS; t++) {
+
+				futures.add(executor.submit(() -> {
+
+					List<String> results = new ArrayList<String>();
+
+					for (int round = 0; round < ROUNDS; round++) {
+
+						// every thread starts each round together
+						barrier.await();
+
+						results.add(workload());
+					}
+
+					return results;
+				}));
+			}
+
+			List<List<String>> concurrent = new ArrayList<List<String>>();
+
+			for (Future<List<String>> future : futures) {
+
+				concurrent.add(future.get());
+			}
+
+			// then the same work alone
+			String expected = workload();
+
+			for (List<String> results : concurrent) {
+
+				for (String result : results) {
+
+					assertEquals(expected, result);
+				}
+			}
+
+		} finally {
+
+			executor.shutdown();
+		}
+	}
+}
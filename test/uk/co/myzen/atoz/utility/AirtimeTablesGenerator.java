@@ -0,0 +1,560 @@
+package uk.co.myzen.atoz.utility;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import uk.co.myzen.atoz.utility.Airtime.AirtimeException;
+
+/**
+ * @author howard
+ *
+ *         Generates src/uk/co/myzen/atoz/utility/AirtimeTables.java from the
+ *         run-length airtime data that used to be expanded by Airtime at class
+ *         initialisation. Run from the project directory, after compiling, with
+ *
+ *         java -cp target/classes test/uk/co/myzen/atoz/utility/AirtimeTablesGenerator.java
+ *
+ *         Each table is expanded exactly as before, except for three runs the
+ *         old data got wrong which are recalculated by {@link TimeOnAir}. Tables that are a prefix of
+ *         another share its backing array, and the backing arrays are encoded as
+ *         String constants of (run length, change in tenths of mS) pairs. The
+ *         generated encoding is decoded again and compared with the expansion
+ *         before the file is written. {@link AirtimeTablesTest} checks the
+ *         committed file against the corrected expansion and against this
+ *         generator's output.
+ *
+ */
+public class AirtimeTablesGenerator {
+
+	static final String OUTPUT = "src/uk/co/myzen/atoz/utility/AirtimeTables.java";
+
+	// enum constants in ordinal order of Airtime.Band, BandWidth and SpreadingFactor
+	private static final String[] BANDS = { "EU868", "US915" };
+	private static final String[] BANDWIDTHS = { "BW125", "BW250", "BW500" };
+	private static final String[] SPREADING_FACTORS = { "SF7", "SF8", "SF9", "SF10", "SF11", "SF12" };
+
+	// US915
+	// (uplink)
+	private static final int[] data_US915_DR0_BW125_SF10_11 = { 2888, 3297, 3707, };
+
+	private static final int[] data_US915_DR1_BW125_SF9_53 = { 1649, 1853, 2058, 2263, 2468, 2673, 2877, 3082, 3287,
+			3492, 3697, 3901, };
+
+	private static final int[] data_US915_DR2_BW125_SF8_125 = { 824, 927, 1029, 1132, 1234, 1336, 1439, 1541, 1644,
+			1746, 1848, 1951, 2053, 2156, 2258, 2360, 2463, 2565, 2668, 2770, 2872, 2975, 3077, 3180, 3282, 3384, 3487,
+			3589, 3692, 3794, 3896, 3999, };
+
+	private static final int[] data_US915_DR3_BW125_SF7_242 = { 463, 515, 566, 617, 668, 719, 771, 822, 873, 924, 975,
+			1027, 1078, 1129, 1180, 1231, 1283, 1334, 1385, 1436, 1487, 1539, 1590, 1641, 1692, 1743, 1795, 1846, 1897,
+			1948, 1999, 2051, 2102, 2153, 2204, 2255, 2307, 2358, 2409, 2460, 2511, 2563, };
+
+	private static final int[] data_US915_DR4_DR12_BW500_SF8_222 = { 206, 232, 257, 283, 308, 334, 360, 385, 411, 436,
+			462, 488, 513, 539, 564, 590, 616, 641, 667, 692, 718, 744, 769, 795, 820, 846, 872, 897, 923, 948, 974,
+			1000, 1025, 1051, 1076, 1102, 1128, 1153, 1179, 1204, 1230, 1256, 1281, 1307, 1332, 1358, 1384, 1409, 1435,
+			1460, 1486, 1512, 1537, 1563, 1588, 1614, 1640, }; // 904.6Mhz only - actually DR4 and DR12 are the same
+
+	// (downlink)
+	private static final int[] data_US915_DR8_BW500_SF12_33 = { 2888, 3297, 3707, 4116, 4529, 4936, };
+
+	private static final int[] data_US915_DR9_BW500_SF11_109 = { 1444, 1649, 1853, 2058, 2263, 2468, 2673, 2877, 3082,
+			3287, 3492, 3697, 3901, 4106, 4311, 4516, 4721, 4925, 5130, 5335, 5540, };
+
+	private static final int[] data_US915_DR10_BW500_SF10_222 = { 722, 824, 927, 1029, 1132, 1234, 1336, 1439, 1541,
+			1644, 1746, 1848, 1951, 2053, 2156, 2258, 2360, 2463, 2565, 2668, 2770, 2872, 2975, 3077, 3180, 3282, 3384,
+			3487, 3589, 3692, 3794, 3896, 3999, 4101, 4204, 4036, 4408, 4511, 4613, 4716, 4818, 4920, 5023, 5125, 5228,
+			5330, };
+	private static final int[] data_US915_DR11_BW500_SF9_222 = { 412, 463, 515, 566, 617, 668, 719, 771, 822, 873, 924,
+			975, 1027, 1078, 1129, 1180, 1231, 1283, 1334, 1385, 1436, 1487, 1539, 1590, 1641, 1692, 1743, 1795, 1846,
+			1897, 1948, 1999, 2051, 2102, 2153, 2204, 2255, 2307, 2358, 2409, 2460, 2511, 2563, 2614, 2665, 2716, 2767,
+			2819, 2870, 2921, };
+
+	private static final int[] data_US915_DR13_BW500_SF7_222 = { 116, 129, 141, 154, 167, 180, 193, 205, 218, 231, 244,
+			257, 269, 282, 295, 308, 321, 333, 346, 359, 372, 385, 397, 410, 423, 436, 449, 461, 474, 487, 500, 513,
+			525, 538, 551, 564, 577, 589, 602, 615, 628, 641, 653, 666, 679, 692, 705, 717, 730, 743, 756, 769, 781,
+			794, 807, 820, 833, 845, 858, 871, 884, 897, 909, 922, };
+
+	// EU868
+	private static final int[] data_EU868_DR0_BW125_SF12_51 = { 11551, 13189, 14828, 16466, 18104, 19743, 21381, 23020,
+			24658, 26296, 27935 };
+
+	private static final int[] data_EU868_DR1_BW125_SF11_51 = { 5775, 6595, 7414, 8233, 9052, 9871, 10691, 11510, 12329,
+			13148, 13967, 14787, 15606 };
+
+	private static final int[] data_EU868_DR2_BW125_SF10_51 = { 2888, 3297, 3707, 4116, 4526, 4936, 5345, 5755, 6164,
+			6574, 6984, };
+
+	private static final int[] data_EU868_DR3_BW125_SF9_115 = { 1649, 1853, 2058, 2263, 2468, 2673, 2877, 3082, 3287,
+			3492, 3697, 3901, 4106, 4311, 4516, 4721, 4925, 5130, 5335, 5540, 5745, 5949, 6154, 6359, 6564, 6769 };
+
+	private static final int[] data_EU868_DR4_BW125_SF8_222 = { 824, 927, 1029, 1132, 1234, 1336, 1439, 1541, 1644,
+			1746, 1848, 1951, 2053, 2156, 2258, 2360, 2463, 2565, 2668, 2770, 2872, 2975, 3077, 3180, 3282, 3384, 3487,
+			3589, 3692, 3794, 3896, 3999, 4101, 4204, 4306, 4408, 4511, 4613, 4716, 4818, 4920, 5023, 5125, 5228, 5330,
+			5432, 5535, 5637, 5740, 5842, 5944, 6047, 6149, 6252, 6354, 6456, 6559 };
+
+	private static final int[] data_EU868_DR5_BW125_SF7_222 = { 463, 515, 566, 617, 668, 719, 771, 822, 873, 924, 975,
+			1027, 1078, 1129, 1180, 1231, 1283, 1334, 1385, 1436, 1487, 1539, 1590, 1641, 1692, 1743, 1795, 1846, 1897,
+			1948, 1999, 2051, 2102, 2153, 2204, 2255, 2307, 2358, 2409, 2460, 2511, 2563, 2614, 2665, 2716, 2767, 2819,
+			2870, 2921, 2972, 3023, 3075, 3126, 3177, 3228, 3279, 3331, 3382, 3433, 3484, 3535, 3587, 3638, 3689 };
+
+	private static final int[] data_EU868_DR6_BW250_SF7_222 = { 232, 257, 283, 308, 334, 360, 385, 411, 436, 462, 488,
+			513, 539, 564, 590, 616, 641, 667, 692, 718, 744, 769, 795, 820, 846, 872, 897, 923, 948, 974, 1000, 1025,
+			1051, 1076, 1102, 1128, 1153, 1179, 1204, 1230, 1256, 1281, 1307, 1332, 1358, 1384, 1409, 1435, 1460, 1486,
+			1512, 1537, 1563, 1588, 1614, 1640, 1665, 1691, 1716, 1742, 1768, 1793, 1819, 1844 };
+
+	static class Spec {
+
+		final String band;
+		final String bandWidth;
+		final String spreadingFactor;
+
+		final int[] table;
+
+		int backing;
+
+		Spec(String band, String bandWidth, String spreadingFactor, int[] table) {
+
+			this.band = band;
+			this.bandWidth = bandWidth;
+			this.spreadingFactor = spreadingFactor;
+			this.table = table;
+		}
+
+		String name() {
+
+			return band + " " + bandWidth + " " + spreadingFactor;
+		}
+	}
+
+	/**
+	 * @return every supported combination with its table expanded from the
+	 *         original run-length data and corrected
+	 */
+	static List<Spec> specs() {
+
+		List<Spec> specs = new ArrayList<Spec>();
+
+		specs.add(new Spec("US915", "BW500", "SF12", corrected(
+				expandTable(6, 6, 6, 33, data_US915_DR8_BW500_SF12_33), 12, 500000, 24, 29)));
+		specs.add(new Spec("US915", "BW500", "SF11", expandTable(4, 6, 5, 109, data_US915_DR9_BW500_SF11_109)));
+		specs.add(new Spec("US915", "BW500", "SF10", corrected(
+				expandTable(2, 5, 5, 222, data_US915_DR10_BW500_SF10_222), 10, 500000, 172, 176)));
+		specs.add(new Spec("US915", "BW500", "SF9", expandTable(5, 4, 5, 222, data_US915_DR11_BW500_SF9_222)));
+		specs.add(new Spec("US915", "BW500", "SF8", expandTable(2, 4, 4, 222, data_US915_DR4_DR12_BW500_SF8_222)));
+		specs.add(new Spec("US915", "BW500", "SF7", expandTable(3, 4, 3, 222, data_US915_DR13_BW500_SF7_222)));
+
+		specs.add(new Spec("US915", "BW125", "SF10", expandTable(2, 5, 5, 11, data_US915_DR0_BW125_SF10_11)));
+		specs.add(new Spec("US915", "BW125", "SF9", expandTable(5, 4, 5, 53, data_US915_DR1_BW125_SF9_53)));
+		specs.add(new Spec("US915", "BW125", "SF8", expandTable(2, 4, 4, 125, data_US915_DR2_BW125_SF8_125)));
+		specs.add(new Spec("US915", "BW125", "SF7", corrected(
+				expandTable(3, 4, 3, 242, data_US915_DR3_BW125_SF7_242), 7, 125000, 147, 241)));
+
+		specs.add(new Spec("EU868", "BW250", "SF7", expandTable(3, 4, 3, 223, data_EU868_DR6_BW250_SF7_222)));
+
+		specs.add(new Spec("EU868", "BW125", "SF7", expandTable(3, 4, 3, 223, data_EU868_DR5_BW125_SF7_222)));
+		specs.add(new Spec("EU868", "BW125", "SF8", expandTable(2, 4, 4, 223, data_EU868_DR4_BW125_SF8_222)));
+		specs.add(new Spec("EU868", "BW125", "SF9", expandTable(5, 4, 5, 116, data_EU868_DR3_BW125_SF9_115)));
+		specs.add(new Spec("EU868", "BW125", "SF10", expandTable(2, 5, 5, 52, data_EU868_DR2_BW125_SF10_51)));
+		specs.add(new Spec("EU868", "BW125", "SF11", expandTable(1, 5, 4, 52, data_EU868_DR1_BW125_SF11_51)));
+		specs.add(new Spec("EU868", "BW125", "SF12", expandTable(3, 5, 5, 52, data_EU868_DR0_BW125_SF12_51)));
+
+		return specs;
+	}
+
+	/**
+	 * Replaces a run of payload sizes with the airtime {@link TimeOnAir} gives
+	 * for a LoRaWAN frame. The US915 BW125 SF7 data ends after payload size 146,
+	 * leaving the rest of that table 0, and two short runs of US915 BW500 repeat
+	 * the wrong step.
+	 */
+	private static int[] corrected(int[] table, int sf, int bw, int firstPayloadSize, int lastPayloadSize) {
+
+		try {
+
+			TimeOnAir timeOnAir = TimeOnAir.getInstance(sf, bw);
+
+			for (int payloadSize = firstPayloadSize; payloadSize <= lastPayloadSize; payloadSize++) {
+
+				table[payloadSize] = timeOnAir.tenthsMsTimeOnAir(payloadSize + TimeOnAir.LORAWAN_OVERHEAD);
+			}
+
+		} catch (AirtimeException e) {
+
+			throw new IllegalStateException(e.getMessage());
+		}
+
+		return table;
+	}
+
+	// copied unchanged from Airtime so the generated tables match the old expansion
+	private static int[] expandTable(int preamble, int countFirst, int countSecond, int maxTableSize, int[] data) {
+
+		int[] result = new int[maxTableSize];
+
+		List<Integer> intArray = new ArrayList<Integer>(maxTableSize);
+
+		int count = preamble;
+
+		int index = 0;
+
+		boolean first = false;
+
+		try {
+
+			do {
+
+				Integer value = Integer.valueOf(data[index]);
+
+				for (int i = 0; i < count; i++) {
+
+					if (intArray.size() >= maxTableSize) {
+
+						return result;
+					}
+
+					intArray.add(value);
+				}
+
+				first = !first;
+
+				count = first ? countFirst : countSecond;
+
+				index++;
+
+			} while (index < data.length);
+
+			return result;
+
+		} finally {
+
+			for (int i = 0; i < intArray.size(); i++) {
+
+				result[i] = intArray.get(i);
+			}
+
+		}
+
+	}
+
+	public static void main(String[] args) throws IOException {
+
+		Files.write(Paths.get(args.length > 0 ? args[0] : OUTPUT), generate().getBytes(StandardCharsets.US_ASCII));
+	}
+
+	/**
+	 * @return the text of AirtimeTables.java
+	 */
+	static String generate() {
+
+		List<Spec> specs = specs();
+
+		// longest first so each table finds the longest table it is a prefix of
+		List<Spec> byLength = new ArrayList<Spec>(specs);
+
+		byLength.sort((a, b) -> b.table.length - a.table.length);
+
+		List<int[]> backings = new ArrayList<int[]>();
+
+		for (Spec spec : byLength) {
+
+			spec.backing = -1;
+
+			for (int i = 0; i < backings.size() && spec.backing < 0; i++) {
+
+				int[] backing = backings.get(i);
+
+				if (Arrays.equals(backing, 0, spec.table.length, spec.table, 0, spec.table.length)) {
+
+					spec.backing = i;
+				}
+			}
+
+			if (spec.backing < 0) {
+
+				spec.backing = backings.size();
+
+				backings.add(spec.table);
+			}
+		}
+
+		List<String> encoded = new ArrayList<String>();
+
+		for (int[] backing : backings) {
+
+			String encoding = encode(backing);
+
+			if (!Arrays.equals(backing, decode(encoding))) {
+
+				throw new IllegalStateException("Encoding does not round trip");
+			}
+
+			encoded.add(encoding);
+		}
+
+		for (Spec spec : specs) {
+
+			int[] decoded = decode(encoded.get(spec.backing));
+
+			if (!Arrays.equals(spec.table, Arrays.copyOf(decoded, spec.table.length))) {
+
+				throw new IllegalStateException("Decoded table differs for " + spec.name());
+			}
+		}
+
+		return render(specs, encoded);
+	}
+
+	/**
+	 * Pairs of run length and change from the previous value, as chars
+	 */
+	private static String encode(int[] table) {
+
+		StringBuilder sb = new StringBuilder();
+
+		int previous = 0;
+
+		for (int i = 0; i < table.length;) {
+
+			int run = 1;
+
+			while (i + run < table.length && table[i + run] == table[i] && run < Character.MAX_VALUE) {
+
+				run++;
+			}
+
+			int delta = table[i] - previous;
+
+			if (delta != (short) delta) {
+
+				throw new IllegalStateException("Change " + delta + " does not fit a short");
+			}
+
+			sb.append((char) run).append((char) delta);
+
+			previous = table[i];
+
+			i += run;
+		}
+
+		return sb.toString();
+	}
+
+	// the same decoding as AirtimeTables
+	private static int[] decode(String encoded) {
+
+		int size = 0;
+
+		for (int i = 0; i < encoded.length(); i += 2) {
+
+			size += encoded.charAt(i);
+		}
+
+		int[] table = new int[size];
+
+		int value = 0;
+
+		int index = 0;
+
+		for (int i = 0; i < encoded.length(); i += 2) {
+
+			value += (short) encoded.charAt(i + 1);
+
+			for (int end = index + encoded.charAt(i); index < end; index++) {
+
+				table[index] = value;
+			}
+		}
+
+		return table;
+	}
+
+	private static String literal(String s) {
+
+		StringBuilder sb = new StringBuilder("\"");
+
+		for (int i = 0; i < s.length(); i++) {
+
+			char c = s.charAt(i);
+
+			if ('"' == c || '\\' == c) {
+
+				sb.append('\\').append(c);
+
+			} else if (c < 0x20) {
+
+				// always three digits so a following digit is not taken as part of the escape
+				sb.append(String.format("\\%03o", (int) c));
+
+			} else if (c < 0x7f) {
+
+				sb.append(c);
+
+			} else {
+
+				sb.append(String.format("\\u%04x", (int) c));
+			}
+		}
+
+		return sb.append('"').toString();
+	}
+
+	private static String render(List<Spec> specs, List<String> encoded) {
+
+		int[][][] backing = new int[BANDS.length][BANDWIDTHS.length][SPREADING_FACTORS.length];
+		int[][][] size = new int[BANDS.length][BANDWIDTHS.length][SPREADING_FACTORS.length];
+
+		for (int[][] b : backing) {
+
+			for (int[] bw : b) {
+
+				Arrays.fill(bw, -1);
+			}
+		}
+
+		for (Spec spec : specs) {
+
+			int b = Arrays.asList(BANDS).indexOf(spec.band);
+			int bw = Arrays.asList(BANDWIDTHS).indexOf(spec.bandWidth);
+			int sf = Arrays.asList(SPREADING_FACTORS).indexOf(spec.spreadingFactor);
+
+			backing[b][bw][sf] = spec.backing;
+			size[b][bw][sf] = spec.table.length;
+		}
+
+		StringWriter text = new StringWriter();
+
+		try (PrintWriter out = new PrintWriter(text)) {
+
+			out.print("// Generated by test/uk/co/myzen/atoz/utility/AirtimeTablesGenerator.java - do not edit\n");
+			out.print("package uk.co.myzen.atoz.utility;\n\n");
+			out.print("import uk.co.myzen.atoz.utility.Airtime.Band;\n");
+			out.print("import uk.co.myzen.atoz.utility.Airtime.BandWidth;\n");
+			out.print("import uk.co.myzen.atoz.utility.Airtime.SpreadingFactor;\n\n");
+			out.print("/**\n");
+			out.print(" * @author howard\n");
+			out.print(" *\n");
+			out.print(" *         Airtime tables in tenths of a millisecond indexed by payload\n");
+			out.print(" *         size. Each backing table is a String of (run length, change)\n");
+			out.print(" *         char pairs decoded once at class initialisation, and a table\n");
+			out.print(" *         that is a prefix of another shares its backing array.\n");
+			out.print(" *\n");
+			out.print(" */\n");
+			out.print("final class AirtimeTables {\n\n");
+
+			out.print("\tprivate static final String[] ENCODED = {\n\n");
+
+			for (int i = 0; i < encoded.size(); i++) {
+
+				StringBuilder users = new StringBuilder();
+
+				for (Spec spec : specs) {
+
+					if (spec.backing == i) {
+
+						users.append(users.length() > 0 ? ", " : "").append(spec.name()).append(" (")
+								.append(spec.table.length).append(')');
+					}
+				}
+
+				out.print("\t\t\t// " + users + "\n");
+				out.print("\t\t\t" + literal(encoded.get(i)) + ",\n\n");
+			}
+
+			out.print("\t};\n\n");
+
+			out.print("\t// [band][bandwidth][spreading factor] ordinals, -1 when unsupported\n");
+			out.print("\tprivate static final int[][][] BACKING = " + nested(backing) + ";\n\n");
+
+			out.print("\tprivate static final int[][][] SIZE = " + nested(size) + ";\n\n");
+
+			out.print("\tprivate static final int[][] TABLES = decodeAll();\n\n");
+
+			out.print("\tprivate AirtimeTables() {\n\t}\n\n");
+
+			out.print("\t/**\n");
+			out.print("\t * @return the backing table, possibly longer than {@link #size}, or null when\n");
+			out.print("\t *         the combination is unsupported\n");
+			out.print("\t */\n");
+			out.print("\tstatic int[] table(Band band, BandWidth bandWidth, SpreadingFactor spreadingFactor) {\n\n");
+			out.print("\t\tint backing = lookup(BACKING, band, bandWidth, spreadingFactor, -1);\n\n");
+			out.print("\t\treturn backing < 0 ? null : TABLES[backing];\n");
+			out.print("\t}\n\n");
+
+			out.print("\t/**\n");
+			out.print("\t * @return number of payload sizes in the table, 0 when unsupported\n");
+			out.print("\t */\n");
+			out.print("\tstatic int size(Band band, BandWidth bandWidth, SpreadingFactor spreadingFactor) {\n\n");
+			out.print("\t\treturn lookup(SIZE, band, bandWidth, spreadingFactor, 0);\n");
+			out.print("\t}\n\n");
+
+			out.print("\tprivate static int lookup(int[][][] values, Band band, BandWidth bandWidth,\n");
+			out.print("\t\t\tSpreadingFactor spreadingFactor, int missing) {\n\n");
+			out.print("\t\tint b = band.ordinal();\n");
+			out.print("\t\tint bw = bandWidth.ordinal();\n");
+			out.print("\t\tint sf = spreadingFactor.ordinal();\n\n");
+			out.print("\t\t// constants added to the enums after generation are unsupported\n");
+			out.print("\t\tif (b >= values.length || bw >= values[b].length || sf >= values[b][bw].length) {\n\n");
+			out.print("\t\t\treturn missing;\n");
+			out.print("\t\t}\n\n");
+			out.print("\t\treturn values[b][bw][sf];\n");
+			out.print("\t}\n\n");
+
+			out.print("\tprivate static int[][] decodeAll() {\n\n");
+			out.print("\t\tint[][] tables = new int[ENCODED.length][];\n\n");
+			out.print("\t\tfor (int t = 0; t < ENCODED.length; t++) {\n\n");
+			out.print("\t\t\tString encoded = ENCODED[t];\n\n");
+			out.print("\t\t\tint size = 0;\n\n");
+			out.print("\t\t\tfor (int i = 0; i < encoded.length(); i += 2) {\n\n");
+			out.print("\t\t\t\tsize += encoded.charAt(i);\n");
+			out.print("\t\t\t}\n\n");
+			out.print("\t\t\tint[] table = new int[size];\n\n");
+			out.print("\t\t\tint value = 0;\n\n");
+			out.print("\t\t\tint index = 0;\n\n");
+			out.print("\t\t\tfor (int i = 0; i < encoded.length(); i += 2) {\n\n");
+			out.print("\t\t\t\tvalue += (short) encoded.charAt(i + 1);\n\n");
+			out.print("\t\t\t\tfor (int end = index + encoded.charAt(i); index < end; index++) {\n\n");
+			out.print("\t\t\t\t\ttable[index] = value;\n");
+			out.print("\t\t\t\t}\n");
+			out.print("\t\t\t}\n\n");
+			out.print("\t\t\ttables[t] = table;\n");
+			out.print("\t\t}\n\n");
+			out.print("\t\treturn tables;\n");
+			out.print("\t}\n");
+			out.print("}\n");
+		}
+
+		return text.toString();
+	}
+
+	private static String nested(int[][][] values) {
+
+		StringBuilder sb = new StringBuilder("{");
+
+		for (int[][] b : values) {
+
+			sb.append("\n\t\t\t{");
+
+			for (int[] bw : b) {
+
+				sb.append(" {");
+
+				for (int sf = 0; sf < bw.length; sf++) {
+
+					sb.append(sf > 0 ? ", " : " ").append(bw[sf]);
+				}
+
+				sb.append(" },");
+			}
+
+			sb.append(" },");
+		}
+
+		return sb.append(" }").toString();
+	}
+}
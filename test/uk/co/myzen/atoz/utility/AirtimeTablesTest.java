@@ -0,0 +1,88 @@
+package uk.co.myzen.atoz.utility;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import uk.co.myzen.atoz.utility.Airtime.Band;
+import uk.co.myzen.atoz.utility.Airtime.BandWidth;
+import uk.co.myzen.atoz.utility.Airtime.SpreadingFactor;
+import uk.co.myzen.atoz.utility.AirtimeTablesGenerator.Spec;
+
+/**
+ * @author howard
+ *
+ *         Every table decoded by {@link AirtimeTables} against the corrected
+ *         run-length data expanded by {@link AirtimeTablesGenerator}, so that a
+ *         hand-edited or stale AirtimeTables.java cannot drift from it.
+ *
+ */
+public class AirtimeTablesTest {
+
+	@Test
+	public void decodesEveryTable() {
+
+		Set<String> supported = new HashSet<String>();
+
+		for (Spec spec : AirtimeTablesGenerator.specs()) {
+
+			Band band = Band.valueOf(spec.band);
+			BandWidth bandWidth = BandWidth.valueOf(spec.bandWidth);
+			SpreadingFactor spreadingFactor = SpreadingFactor.valueOf(spec.spreadingFactor);
+
+			assertTrue(supported.add(spec.name()), spec.name());
+
+			int size = AirtimeTables.size(band, bandWidth, spreadingFactor);
+
+			assertEquals(spec.table.length, size, spec.name());
+
+			int[] table = AirtimeTables.table(band, bandWidth, spreadingFactor);
+
+			assertNotNull(table, spec.name());
+			assertTrue(table.length >= size, spec.name());
+
+			assertArrayEquals(spec.table, Arrays.copyOf(table, size), spec.name());
+		}
+
+		assertEquals(17, supported.size());
+
+		for (Band band : Band.values()) {
+
+			for (BandWidth bandWidth : BandWidth.values()) {
+
+				for (SpreadingFactor spreadingFactor : SpreadingFactor.values()) {
+
+					String name = band + " " + bandWidth + " " + spreadingFactor;
+
+					if (!supported.contains(name)) {
+
+						assertNull(AirtimeTables.table(band, bandWidth, spreadingFactor), name);
+						assertEquals(0, AirtimeTables.size(band, bandWidth, spreadingFactor), name);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void matchesGeneratorOutput() throws IOException {
+
+		String committed = new String(Files.readAllBytes(Paths.get(AirtimeTablesGenerator.OUTPUT)),
+				StandardCharsets.US_ASCII);
+
+		assertEquals(AirtimeTablesGenerator.generate(), committed,
+				"AirtimeTables.java differs from the generator output; regenerate it");
+	}
+}
@@ -0,0 +1,130 @@
+package uk.co.myzen.atoz.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import uk.co.myzen.atoz.utility.Airtime.AirtimeException;
+import uk.co.myzen.atoz.utility.Airtime.Band;
+
+/**
+ * @author howard
+ *
+ *         {@link Airtime#getInstancesWithin(Band, int, float)} against every
+ *         combination worked out from {@link TimeOnAir}.
+ *
+ */
+public class AirtimeTest {
+
+	private static final int[] BANDWIDTHS = { 125000, 250000, 500000 };
+
+	private static final float[] MS_AIRTIMES = { 5f, 50f, 100f, 200f, 400f, 1000f, 5000f };
+
+	/**
+	 * The combinations of the band, or all bands when null, that TimeOnAir says
+	 * carry the payload within the airtime, quickest first and otherwise in band,
+	 * bandwidth and spreading factor order
+	 */
+	private static List<Airtime> expected(Band band, int payloadSize, float msAirtime) throws AirtimeException {
+
+		List<Airtime> result = new ArrayList<Airtime>();
+
+		for (Band b : Band.values()) {
+
+			for (int bw : BANDWIDTHS) {
+
+				for (int sf = 7; sf <= 12; sf++) {
+
+					Airtime airtime;
+
+					try {
+
+						airtime = Airtime.getInstance(b, bw, sf);
+
+					} catch (AirtimeException e) {
+
+						continue; // unsupported combination
+					}
+
+					if ((null == band || band == b) && payloadSize <= airtime.getMaximumPayloadSize()
+							&& tenths(airtime, payloadSize) <= (int) (10 * msAirtime)) {
+
+						result.add(airtime);
+					}
+				}
+			}
+		}
+
+		result.sort(Comparator.comparingInt(airtime -> tenths(airtime, payloadSize)));
+
+		return result;
+	}
+
+	private static int tenths(Airtime airtime, int payloadSize) {
+
+		try {
+
+			return TimeOnAir.getInstance(airtime.getSpreadingFactor().ordinal() + 7, bandWidth(airtime))
+					.tenthsMsTimeOnAir(payloadSize + TimeOnAir.LORAWAN_OVERHEAD);
+
+		} catch (AirtimeException e) {
+
+			throw new IllegalStateException(e.getMessage());
+		}
+	}
+
+	private static int bandWidth(Airtime airtime) {
+
+		return BANDWIDTHS[airtime.getBandWidth().ordinal()];
+	}
+
+	@Test
+	public void largeUS915PayloadsRankedByTimeOnAir() throws AirtimeException {
+
+		for (int payloadSize = 147; payloadSize <= 242; payloadSize++) {
+
+			for (float msAirtime : MS_AIRTIMES) {
+
+				List<Airtime> instances = Airtime.getInstancesWithin(Band.US915, payloadSize, msAirtime);
+
+				assertEquals(expected(Band.US915, payloadSize, msAirtime), instances,
+						"payload " + payloadSize + " within " + msAirtime + " mS");
+
+				for (Airtime airtime : instances) {
+
+					assertTrue(airtime.msAirtimeEstimate(payloadSize) > 0, airtime.getBandWidth() + " "
+							+ airtime.getSpreadingFactor() + " payload " + payloadSize);
+				}
+			}
+		}
+
+		// 200 bytes on US915 go quickest at 500kHz SF7, slowest at 500kHz SF10
+		List<Airtime> quickest = Airtime.getInstancesWithin(Band.US915, 200, 5000f);
+
+		assertEquals(Airtime.getInstance(Band.US915, 500000, 7), quickest.get(0));
+		assertEquals(Airtime.getInstance(Band.US915, 500000, 10), quickest.get(quickest.size() - 1));
+
+		assertTrue(Airtime.getInstancesWithin(200, 5f).isEmpty());
+	}
+
+	@Test
+	public void everyPayloadAllBands() throws AirtimeException {
+
+		for (int payloadSize = -1; payloadSize <= 243; payloadSize++) {
+
+			for (float msAirtime : MS_AIRTIMES) {
+
+				List<Airtime> expected = payloadSize < 0 ? new ArrayList<Airtime>()
+						: expected(null, payloadSize, msAirtime);
+
+				assertEquals(expected, Airtime.getInstancesWithin(payloadSize, msAirtime),
+						"payload " + payloadSize + " within " + msAirtime + " mS");
+			}
+		}
+	}
+}
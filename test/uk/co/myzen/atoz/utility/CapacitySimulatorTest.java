@@ -0,0 +1,61 @@
+package uk.co.myzen.atoz.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import uk.co.myzen.atoz.utility.Airtime.AirtimeException;
+import uk.co.myzen.atoz.utility.Airtime.Band;
+import uk.co.myzen.atoz.utility.CapacitySimulator.Result;
+import uk.co.myzen.atoz.utility.CapacitySimulator.Traffic;
+
+/**
+ * @author howard
+ *
+ *         {@link CapacitySimulator} collisions, using devices that send back to
+ *         back on a single channel so that any overlap the model allows is
+ *         found.
+ *
+ */
+public class CapacitySimulatorTest {
+
+	private static final long MS_DURATION = 60000;
+
+	@Test
+	public void deviceNeverCollidesWithItself() throws AirtimeException {
+
+		Traffic busy = new Traffic(Airtime.getInstance(Band.EU868, 125000, 7), 20, 1, 1);
+
+		Result result = new CapacitySimulator(Collections.singletonList(busy), 1, 6, 0).run(1, MS_DURATION, 4, 1);
+
+		assertTrue(result.getDeliveryRatio() == 1, "delivery ratio " + result.getDeliveryRatio());
+
+		// back to back, so the channel is all but fully occupied
+		assertEquals(1, result.getChannelOccupancy(), 0.01);
+	}
+
+	@Test
+	public void bandsDoNotCollide() throws AirtimeException {
+
+		Traffic eu868 = new Traffic(Airtime.getInstance(Band.EU868, 125000, 7), 20, 1, 1);
+		Traffic us915 = new Traffic(Airtime.getInstance(Band.US915, 125000, 7), 20, 1, 1);
+
+		CapacitySimulator simulator = new CapacitySimulator(Arrays.asList(eu868, us915), 1, 6, 0);
+
+		// two devices share a band in about half the trials, losing nearly every
+		// frame, and deliver everything in the others
+		double ratio = simulator.run(2, MS_DURATION, 200, 2).getDeliveryRatio();
+
+		assertTrue(ratio > 0.35 && ratio < 0.65, "delivery ratio " + ratio);
+
+		// whereas two devices in one band lose nearly every frame
+		ratio = new CapacitySimulator(Collections.singletonList(eu868), 1, 6, 0).run(2, MS_DURATION, 20, 3)
+				.getDeliveryRatio();
+
+		assertTrue(ratio < 0.05, "delivery ratio " + ratio);
+	}
+}
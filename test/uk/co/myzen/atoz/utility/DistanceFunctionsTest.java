@@ -0,0 +1,232 @@
+package uk.co.myzen.atoz.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Test;
+
+import uk.co.myzen.atoz.utility.DistanceFunctions.Mode;
+
+/**
+ * @author howard
+ *
+ *         Sweeps each distance mode over random pairs within the domain of its
+ *         documented bound and checks the relative error against
+ *         {@link Haversine#calculateDistance(double, double, double, double)}.
+ *
+ */
+public class DistanceFunctionsTest {
+
+	private static final int PAIRS = 500000;
+
+	private final Haversine haversine = new Haversine();
+
+	private final SplittableRandom random = new SplittableRandom(20261018);
+
+	private static double relativeError(double approximate, double exact) {
+
+		return Math.abs(approximate - exact) / exact;
+	}
+
+	/**
+	 * Latitude uniform over the sphere
+	 */
+	private double randomLat() {
+
+		return Haversine.degrees(Math.asin(2 * random.nextDouble() - 1));
+	}
+
+	private double randomLon() {
+
+		return 360 * random.nextDouble() - 180;
+	}
+
+	/**
+	 * A location uniformly within the distance of the origin, written to index 0
+	 * and 1 of location
+	 */
+	private void randomNear(double lat, double lon, double miles, double[] location) {
+
+		double distance = miles * Math.sqrt(random.nextDouble());
+		double bearing = 360 * random.nextDouble();
+
+		location[0] = haversine.calculateRemoteLatitude(bearing, distance, lat);
+		location[1] = haversine.calculateRemoteLongitude(bearing, distance, lat, lon, location[0]);
+	}
+
+	/**
+	 * @return the largest relative error over pairs each within the miles of each
+	 *         other and the latitude
+	 */
+	private double sweepPairs(DistanceFunction function, double miles, double maxLat) {
+
+		double worst = 0;
+
+		double[] remote = new double[2];
+
+		for (int i = 0; i < PAIRS; i++) {
+
+			double lat = (2 * random.nextDouble() - 1) * maxLat;
+			double lon = randomLon();
+
+			randomNear(lat, lon, miles, remote);
+
+			double exact = haversine.calculateDistance(lat, lon, remote[0], remote[1]);
+
+			if (Math.abs(remote[0]) <= maxLat && exact >= DistanceFunctions.POLYNOMIAL_MIN_MILES) {
+
+				worst = Math.max(worst, relativeError(function.distance(lat, lon, remote[0], remote[1]), exact));
+			}
+		}
+
+		return worst;
+	}
+
+	/**
+	 * @return the largest relative error over pairs each within the miles of a
+	 *         random reference and the latitude
+	 */
+	private double sweepTangentPlane(double miles, double maxLat) {
+
+		double worst = 0;
+
+		double[] local = new double[2];
+		double[] remote = new double[2];
+
+		for (int i = 0; i < PAIRS / 100; i++) {
+
+			GeoPoint reference = new GeoPoint((2 * random.nextDouble() - 1) * maxLat, randomLon());
+
+			DistanceFunction function = DistanceFunctions.tangentPlane(haversine, reference);
+
+			for (int j = 0; j < 100; j++) {
+
+				randomNear(reference.getLatitude(), reference.getLongitude(), miles, local);
+				randomNear(reference.getLatitude(), reference.getLongitude(), miles, remote);
+
+				double exact = haversine.calculateDistance(local[0], local[1], remote[0], remote[1]);
+
+				if (Math.abs(local[0]) <= maxLat && Math.abs(remote[0]) <= maxLat
+						&& exact >= DistanceFunctions.POLYNOMIAL_MIN_MILES) {
+
+					worst = Math.max(worst,
+							relativeError(function.distance(local[0], local[1], remote[0], remote[1]), exact));
+				}
+			}
+		}
+
+		return worst;
+	}
+
+	@Test
+	public void haversineIsExact() {
+
+		DistanceFunction function = DistanceFunctions.of(Mode.HAVERSINE, haversine, null);
+
+		for (int i = 0; i < PAIRS; i++) {
+
+			double localLat = randomLat();
+			double localLon = randomLon();
+			double remoteLat = randomLat();
+			double remoteLon = randomLon();
+
+			assertEquals(haversine.calculateDistance(localLat, localLon, remoteLat, remoteLon),
+					function.distance(localLat, localLon, remoteLat, remoteLon));
+		}
+	}
+
+	@Test
+	public void equirectangularWithinBound() {
+
+		DistanceFunction function = DistanceFunctions.of(Mode.EQUIRECTANGULAR, haversine, null);
+
+		double worst = sweepPairs(function, 100, 70);
+
+		assertTrue(worst <= DistanceFunctions.EQUIRECTANGULAR_MAX_RELATIVE_ERROR, "100 miles to 70 " + worst);
+
+		worst = sweepPairs(function, 10, 85);
+
+		assertTrue(worst <= DistanceFunctions.NEAR_POLE_MAX_RELATIVE_ERROR, "10 miles to 85 " + worst);
+	}
+
+	@Test
+	public void tangentPlaneWithinBound() {
+
+		double worst = sweepTangentPlane(100, 70);
+
+		assertTrue(worst <= DistanceFunctions.TANGENT_PLANE_MAX_RELATIVE_ERROR, "100 miles to 70 " + worst);
+
+		worst = sweepTangentPlane(10, 85);
+
+		assertTrue(worst <= DistanceFunctions.NEAR_POLE_MAX_RELATIVE_ERROR, "10 miles to 85 " + worst);
+	}
+
+	@Test
+	public void tangentPlaneFarFromReference() {
+
+		// east-west pairs at the edge of the domain, where a fixed cosine of the
+		// reference latitude is several percent out
+		DistanceFunction function = DistanceFunctions.tangentPlane(haversine, new GeoPoint(50, 0));
+
+		assertTrue(relativeError(function.distance(51.32, 0, 51.32, 1),
+				haversine.calculateDistance(51.32, 0, 51.32, 1)) <= DistanceFunctions.TANGENT_PLANE_MAX_RELATIVE_ERROR);
+
+		function = DistanceFunctions.tangentPlane(haversine, new GeoPoint(68.6, 0));
+
+		assertTrue(relativeError(function.distance(69.99, 0, 69.99, 1),
+				haversine.calculateDistance(69.99, 0, 69.99, 1)) <= DistanceFunctions.TANGENT_PLANE_MAX_RELATIVE_ERROR);
+	}
+
+	@Test
+	public void polynomialWithinBound() {
+
+		DistanceFunction function = DistanceFunctions.of(Mode.POLYNOMIAL, haversine, null);
+
+		double worst = 0;
+
+		for (int i = 0; i < PAIRS; i++) {
+
+			double localLat = randomLat();
+			double localLon = randomLon();
+
+			double remoteLat;
+			double remoteLon;
+
+			// anywhere, near the antipode and close by, at scales down to 1e-6 degrees
+			double offset = Math.pow(10, -random.nextInt(7)) * (random.nextDouble() - 0.5);
+
+			switch (i % 3) {
+
+			case 0:
+				remoteLat = randomLat();
+				remoteLon = randomLon();
+				break;
+
+			case 1:
+				remoteLat = Math.max(-90, Math.min(90, offset - localLat));
+				remoteLon = Haversine.normaliseLongitude(localLon + 180 + offset);
+				break;
+
+			default:
+				remoteLat = Math.max(-90, Math.min(90, localLat + offset));
+				remoteLon = Haversine.normaliseLongitude(localLon - offset);
+				break;
+			}
+
+			double exact = haversine.calculateDistance(localLat, localLon, remoteLat, remoteLon);
+
+			if (exact >= DistanceFunctions.POLYNOMIAL_MIN_MILES) {
+
+				worst = Math.max(worst,
+						relativeError(function.distance(localLat, localLon, remoteLat, remoteLon), exact));
+			}
+		}
+
+		assertTrue(worst <= DistanceFunctions.POLYNOMIAL_MAX_RELATIVE_ERROR, "worst " + worst);
+
+		assertTrue(relativeError(function.distance(0, 0, 0, 179.996),
+				haversine.calculateDistance(0, 0, 0, 179.996)) <= DistanceFunctions.POLYNOMIAL_MAX_RELATIVE_ERROR);
+	}
+}
@@ -0,0 +1,63 @@
+package uk.co.myzen.atoz.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author howard
+ *
+ *         {@link DistanceMatrix} written to a memory-mapped file over an
+ *         existing larger one.
+ *
+ */
+public class DistanceMatrixTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void smallerMatrixReplacesLargerFile() throws IOException {
+
+		Path file = directory.resolve("matrix.bin");
+
+		Files.write(file, new byte[100000]);
+
+		double[] rowLats = { 51.5, 40.7, -33.9 };
+		double[] rowLons = { -0.1, -74.0, 151.2 };
+		double[] columnLats = { 48.9, 35.7 };
+		double[] columnLons = { 2.4, 139.7 };
+
+		Haversine haversine = new Haversine();
+
+		new DistanceMatrix(haversine, 2).compute(rowLats, rowLons, columnLats, columnLons, file);
+
+		byte[] bytes = Files.readAllBytes(file);
+
+		assertEquals(rowLats.length * columnLats.length * DistanceMatrix.MappedFileSink.CELL_BYTES, bytes.length);
+
+		ByteBuffer cells = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+
+		for (int row = 0; row < rowLats.length; row++) {
+
+			for (int column = 0; column < columnLats.length; column++) {
+
+				int index = (row * columnLats.length + column) * DistanceMatrix.MappedFileSink.CELL_BYTES;
+
+				assertEquals(haversine.calculateDistance(rowLats[row], rowLons[row], columnLats[column],
+						columnLons[column]), cells.getDouble(index), Haversine.BATCH_DISTANCE_TOLERANCE_MILES);
+
+				assertEquals(haversine.calculateBearing(rowLats[row], rowLons[row], columnLats[column],
+						columnLons[column]), cells.getDouble(index + Double.BYTES),
+						Haversine.BATCH_BEARING_TOLERANCE_DEGREES);
+			}
+		}
+	}
+}
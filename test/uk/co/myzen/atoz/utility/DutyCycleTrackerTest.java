@@ -0,0 +1,58 @@
+package uk.co.myzen.atoz.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import uk.co.myzen.atoz.utility.Airtime.AirtimeException;
+import uk.co.myzen.atoz.utility.Airtime.Band;
+
+/**
+ * @author howard
+ *
+ *         {@link DutyCycleTracker} budgets, including transmissions recorded
+ *         beyond them.
+ *
+ */
+public class DutyCycleTrackerTest {
+
+	@Test
+	public void remainingNeverNegative() {
+
+		DutyCycleTracker tracker = new DutyCycleTracker(1, 1, 1000);
+
+		tracker.record(0, 6000, 0);
+
+		assertEquals(4000, tracker.tenthsMsRemaining(0, 0));
+
+		// recorded whether or not it was allowed, overrunning the budget
+		tracker.record(0, 6000, 1000);
+
+		assertEquals(0, tracker.tenthsMsRemaining(0, 1000));
+		assertEquals(0f, tracker.msRemaining(0, 1000));
+		assertFalse(tracker.maySend(0, 1, 2000));
+
+		// a new UTC day restores the budget
+		assertEquals(10000, tracker.tenthsMsRemaining(0, 24 * 60 * 60 * 1000L));
+	}
+
+	@Test
+	public void largeUS915FramesCharged() throws AirtimeException {
+
+		Airtime airtime = Airtime.getInstance(Band.US915, 125000, 7);
+
+		DutyCycleTracker tracker = new DutyCycleTracker(1);
+
+		int tenths = airtime.tenthsMsAirtimeEstimate(200);
+
+		assertTrue(tenths > 0);
+
+		assertTrue(tracker.trySend(0, airtime, 200, 0));
+
+		assertEquals(10 * DutyCycleTracker.DEFAULT_MS_DAILY_BUDGET - tenths, tracker.tenthsMsRemaining(0, 0));
+		assertEquals((long) Math.ceil(tenths / (10 * DutyCycleTracker.DEFAULT_DUTY_CYCLE)),
+				tracker.msUntilAllowed(0, 0));
+	}
+}
@@ -0,0 +1,159 @@
+package uk.co.myzen.atoz.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.DoubleSupplier;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+/**
+ * @author howard
+ *
+ *         Allocation regression tests for the primitive geodesy kernel and the
+ *         Haversine wrappers over it. Each call is warmed up until compiled,
+ *         then the bytes allocated by the current thread over many calls must
+ *         be zero.
+ *
+ */
+public class HaversineAllocationTest {
+
+	private static final int WARM_UP_CALLS = 200000;
+
+	private static final int MEASURED_CALLS = 100000;
+
+	private static ThreadMXBean threadBean;
+
+	private static long overhead; // bytes allocated by reading the counter itself
+
+	private final Haversine haversine = new Haversine();
+
+	private double sink;
+
+	private int call;
+
+	@BeforeAll
+	public static void setUpBean() {
+
+		threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+		assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+
+		long id = Thread.currentThread().getId();
+
+		overhead = Long.MAX_VALUE;
+
+		for (int i = 0; i < 1000; i++) {
+
+			long before = threadBean.getThreadAllocatedBytes(id);
+
+			overhead = Math.min(overhead, threadBean.getThreadAllocatedBytes(id) - before);
+		}
+	}
+
+	/**
+	 * Varies the inputs so the calls cannot be folded to constants
+	 */
+	private double lat() {
+
+		return 50 + (call & 1023) * 0.001;
+	}
+
+	private double lon() {
+
+		return -1 - (call & 511) * 0.002;
+	}
+
+	private void assertNoAllocation(DoubleSupplier kernel) {
+
+		for (call = 0; call < WARM_UP_CALLS; call++) {
+
+			sink += kernel.getAsDouble();
+		}
+
+		long id = Thread.currentThread().getId();
+
+		long before = threadBean.getThreadAllocatedBytes(id);
+
+		for (call = 0; call < MEASURED_CALLS; call++) {
+
+			sink += kernel.getAsDouble();
+		}
+
+		long allocated = threadBean.getThreadAllocatedBytes(id) - before - overhead;
+
+		assertEquals(0, allocated, "bytes allocated over " + MEASURED_CALLS + " calls");
+
+		assertTrue(Double.isFinite(sink));
+	}
+
+	@Test
+	public void angularDistance() {
+
+		assertNoAllocation(() -> Haversine.angularDistance(Haversine.radians(lat()), Haversine.radians(lon()),
+				Haversine.radians(51.5), Haversine.radians(-0.1)));
+	}
+
+	@Test
+	public void initialBearing() {
+
+		assertNoAllocation(() -> Haversine.initialBearing(Haversine.radians(lat()), Haversine.radians(lon()),
+				Haversine.radians(51.5), Haversine.radians(-0.1)));
+	}
+
+	@Test
+	public void remoteLatitude() {
+
+		assertNoAllocation(
+				() -> Haversine.remoteLatitude(Haversine.radians(lon() + 90), 0.01, Haversine.radians(lat())));
+	}
+
+	@Test
+	public void remoteLongitude() {
+
+		assertNoAllocation(() -> Haversine.remoteLongitude(Haversine.radians(lon() + 90), 0.01,
+				Haversine.radians(lat()), Haversine.radians(lon()), Haversine.radians(lat() + 0.1)));
+	}
+
+	@Test
+	public void elevationAngle() {
+
+		assertNoAllocation(() -> Haversine.elevationAngle(lat() - 40, 100, lon() + 500));
+	}
+
+	@Test
+	public void calculateDistance() {
+
+		assertNoAllocation(() -> haversine.calculateDistance(lat(), lon(), 51.5, -0.1));
+	}
+
+	@Test
+	public void calculateBearing() {
+
+		assertNoAllocation(() -> haversine.calculateBearing(lat(), lon(), 51.5, -0.1));
+	}
+
+	@Test
+	public void calculateRemoteLatitudeAndLongitude() {
+
+		assertNoAllocation(() -> {
+
+			double remoteLat = haversine.calculateRemoteLatitude(lon() + 90, 10, lat());
+
+			return remoteLat + haversine.calculateRemoteLongitude(lon() + 90, 10, lat(), lon(), remoteLat);
+		});
+	}
+
+	@Test
+	public void calculateElevationAngle() {
+
+		assertNoAllocation(() -> haversine.calculateElevationAngle(lat() - 40, 100, lon() + 500));
+	}
+}
@@ -0,0 +1,274 @@
+package uk.co.myzen.atoz.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.DoubleBuffer;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author howard
+ *
+ *         {@link Haversine} batch, one-to-many and parallel forms against the
+ *         scalar methods for random pairs of locations, including coincident,
+ *         near antipodal, polar and date line pairs, and the final bearing of
+ *         the inverse against the initial bearing of the reverse journey.
+ *
+ */
+public class HaversineTest {
+
+	// enough for the parallel forms to split across the pool
+	private static final int PAIRS = 3 * Haversine.PARALLEL_BATCH_THRESHOLD + 7;
+
+	private static final int BUFFER_OFFSET = 5;
+
+	private final Haversine haversine = new Haversine();
+
+	private final double[] localLats = new double[PAIRS];
+	private final double[] localLons = new double[PAIRS];
+	private final double[] remoteLats = new double[PAIRS];
+	private final double[] remoteLons = new double[PAIRS];
+
+	public HaversineTest() {
+
+		Random random = new Random(1);
+
+		for (int i = 0; i < PAIRS; i++) {
+
+			localLats[i] = latitude(random);
+			localLons[i] = longitude(random);
+
+			switch (i % 8) {
+
+			case 0: // coincident
+				remoteLats[i] = localLats[i];
+				remoteLons[i] = localLons[i];
+				break;
+
+			case 1: // near antipodal
+				remoteLats[i] = -localLats[i] + 1e-6 * random.nextGaussian();
+				remoteLons[i] = Haversine.normaliseLongitude(localLons[i] + 180 + 1e-6 * random.nextGaussian());
+				break;
+
+			case 2: // nearby
+				remoteLats[i] = Math.max(-90, Math.min(90, localLats[i] + 1e-3 * random.nextGaussian()));
+				remoteLons[i] = Haversine.normaliseLongitude(localLons[i] + 1e-3 * random.nextGaussian());
+				break;
+
+			case 3: // either side of the date line, with a pole
+				localLons[i] = 180 - 1e-3 * random.nextDouble();
+				remoteLats[i] = random.nextBoolean() ? 90 : -90;
+				remoteLons[i] = -180 + 1e-3 * random.nextDouble();
+				break;
+
+			default:
+				remoteLats[i] = latitude(random);
+				remoteLons[i] = longitude(random);
+			}
+		}
+	}
+
+	/**
+	 * Uniform over the sphere
+	 */
+	private static double latitude(Random random) {
+
+		return Haversine.degrees(Math.asin(2 * random.nextDouble() - 1));
+	}
+
+	private static double longitude(Random random) {
+
+		return 360 * random.nextDouble() - 180;
+	}
+
+	private static void assertBearing(double expected, double actual, String message) {
+
+		assertBearing(expected, actual, Haversine.BATCH_BEARING_TOLERANCE_DEGREES, message);
+	}
+
+	private static void assertBearing(double expected, double actual, double tolerance, String message) {
+
+		double difference = Math.abs(expected - actual) % 360;
+
+		assertTrue(Math.min(difference, 360 - difference) <= tolerance,
+				message + " expected " + expected + " but was " + actual);
+	}
+
+	private static DoubleBuffer buffer(double[] values) {
+
+		DoubleBuffer buffer = DoubleBuffer.allocate(BUFFER_OFFSET + values.length);
+
+		buffer.position(BUFFER_OFFSET);
+
+		buffer.put(values);
+
+		buffer.position(BUFFER_OFFSET);
+
+		return buffer;
+	}
+
+	@Test
+	public void batchDistances() {
+
+		double[] distances = new double[PAIRS];
+		double[] parallel = new double[PAIRS];
+
+		haversine.calculateDistances(localLats, localLons, remoteLats, remoteLons, distances);
+		haversine.calculateDistancesParallel(localLats, localLons, remoteLats, remoteLons, parallel);
+
+		DoubleBuffer buffered = buffer(new double[PAIRS]);
+
+		haversine.calculateDistances(buffer(localLats), buffer(localLons), buffer(remoteLats), buffer(remoteLons),
+				buffered);
+
+		for (int i = 0; i < PAIRS; i++) {
+
+			double expected = haversine.calculateDistance(localLats[i], localLons[i], remoteLats[i], remoteLons[i]);
+
+			String message = "pair " + i;
+
+			assertEquals(expected, distances[i], Haversine.BATCH_DISTANCE_TOLERANCE_MILES, message);
+			assertEquals(expected, parallel[i], Haversine.BATCH_DISTANCE_TOLERANCE_MILES, message);
+			assertEquals(expected, buffered.get(BUFFER_OFFSET + i), Haversine.BATCH_DISTANCE_TOLERANCE_MILES,
+					message);
+		}
+	}
+
+	@Test
+	public void batchBearings() {
+
+		double[] bearings = new double[PAIRS];
+		double[] parallel = new double[PAIRS];
+
+		haversine.calculateBearings(localLats, localLons, remoteLats, remoteLons, bearings);
+		haversine.calculateBearingsParallel(localLats, localLons, remoteLats, remoteLons, parallel);
+
+		DoubleBuffer buffered = buffer(new double[PAIRS]);
+
+		haversine.calculateBearings(buffer(localLats), buffer(localLons), buffer(remoteLats), buffer(remoteLons),
+				buffered);
+
+		for (int i = 0; i < PAIRS; i++) {
+
+			double expected = haversine.calculateBearing(localLats[i], localLons[i], remoteLats[i], remoteLons[i]);
+
+			String message = "pair " + i;
+
+			assertBearing(expected, bearings[i], message);
+			assertBearing(expected, parallel[i], message);
+			assertBearing(expected, buffered.get(BUFFER_OFFSET + i), message);
+		}
+	}
+
+	@Test
+	public void oneToManyDistances() {
+
+		double[] distances = new double[PAIRS];
+
+		// 64 of the local locations, each against every remote location
+		for (int local = 0; local < PAIRS; local += PAIRS / 64) {
+
+			haversine.calculateDistances(localLats[local], localLons[local], remoteLats, remoteLons, distances);
+
+			for (int i = 0; i < PAIRS; i++) {
+
+				assertEquals(
+						haversine.calculateDistance(localLats[local], localLons[local], remoteLats[i], remoteLons[i]),
+						distances[i], Haversine.BATCH_DISTANCE_TOLERANCE_MILES, "local " + local + " remote " + i);
+			}
+		}
+	}
+
+	/**
+	 * Arriving from the local location on a great circle is the reverse of
+	 * leaving for it. Rounding moves either bearing by about 1e-16 over the radians
+	 * from the nearer of the location and its antipode, so the tolerance widens
+	 * for locations close together or nearly antipodal.
+	 */
+	private void assertFinalBearing(double localLat, double localLon, double remoteLat, double remoteLon,
+			Haversine.Inverse inverse, String message) {
+
+		double angle = inverse.getDistance() / haversine.getMilesEarthRadiusApprox();
+
+		assertTrue(angle >= 0 && angle <= Math.PI, message + " distance " + inverse.getDistance());
+
+		// haversine loses precision near antipodes, so measure from the antipode
+		double conditioning = Math.min(angle,
+				Haversine.angularDistance(Haversine.radians(-localLat), Haversine.radians(localLon + 180),
+						Haversine.radians(remoteLat), Haversine.radians(remoteLon)));
+
+		assertBearing(haversine.calculateBearing(remoteLat, remoteLon, localLat, localLon) + 180,
+				inverse.getFinalBearing(), Haversine.BATCH_BEARING_TOLERANCE_DEGREES + 1e-13 / conditioning, message);
+	}
+
+	@Test
+	public void finalBearingIsReverseInitialBearing() {
+
+		Haversine.Inverse inverse = new Haversine.Inverse();
+
+		double[] distances = new double[PAIRS];
+		double[] initialBearings = new double[PAIRS];
+		double[] finalBearings = new double[PAIRS];
+
+		haversine.calculateInverses(localLats, localLons, remoteLats, remoteLons, distances, initialBearings,
+				finalBearings);
+
+		for (int i = 0; i < PAIRS; i++) {
+
+			// a coincident pair has no direction
+			if (0 == i % 8) {
+
+				continue;
+			}
+
+			String message = "pair " + i;
+
+			haversine.calculateInverse(localLats[i], localLons[i], remoteLats[i], remoteLons[i], inverse);
+
+			assertFinalBearing(localLats[i], localLons[i], remoteLats[i], remoteLons[i], inverse, message);
+
+			assertEquals(inverse.getDistance(), distances[i], 0, message);
+			assertEquals(inverse.getInitialBearing(), initialBearings[i], 0, message);
+			assertEquals(inverse.getFinalBearing(), finalBearings[i], 0, message);
+		}
+	}
+
+	@Test
+	public void finalBearingOnMeridians() {
+
+		Haversine.Inverse inverse = new Haversine.Inverse();
+
+		Random random = new Random(9);
+
+		for (int i = 0; i < 1000; i++) {
+
+			double lon = longitude(random);
+
+			double lat = 170 * random.nextDouble() - 85;
+			double north = lat + (89 - lat) * random.nextDouble() + 1e-3;
+
+			String message = "longitude " + lon + " from " + lat + " to " + north;
+
+			// due north arrives heading north, due south heading south
+			haversine.calculateInverse(lat, lon, north, lon, inverse);
+
+			assertBearing(0, inverse.getFinalBearing(), message);
+			assertFinalBearing(lat, lon, north, lon, inverse, message);
+
+			haversine.calculateInverse(north, lon, lat, lon, inverse);
+
+			assertBearing(180, inverse.getFinalBearing(), message);
+			assertFinalBearing(north, lon, lat, lon, inverse, message);
+
+			// along the meridian and over the pole onto the opposite one, just short of
+			// antipodal
+			double opposite = Haversine.normaliseLongitude(lon + 180);
+
+			haversine.calculateInverse(lat, lon, 1e-6 - lat, opposite, inverse);
+
+			assertFinalBearing(lat, lon, 1e-6 - lat, opposite, inverse, message);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package uk.co.myzen.atoz.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author howard
+ *
+ *         Sample ageing in {@link LocationEstimator} for historic times and
+ *         maximum ages below a second.
+ *
+ */
+public class LocationEstimatorTest {
+
+	private static final GeoPoint GATEWAY = new GeoPoint(51.5, -0.1);
+
+	@Test
+	public void historicSamplesAgeOut() {
+
+		LocationEstimator estimator = new LocationEstimator(1, 8, 60000);
+
+		long replay = 1000000000000L; // 2001, long before the estimator was created
+
+		estimator.update(0, GATEWAY, 1, replay);
+		estimator.update(0, GATEWAY, 1, replay + 30000);
+
+		assertEquals(2, estimator.getSampleCount(0, replay + 60000));
+		assertEquals(1, estimator.getSampleCount(0, replay + 60001));
+		assertEquals(0, estimator.getSampleCount(0, replay + 90001));
+	}
+
+	@Test
+	public void subSecondMaximumAge() {
+
+		LocationEstimator estimator = new LocationEstimator(1, 8, 250);
+
+		estimator.update(0, GATEWAY, 1, 10000);
+		estimator.update(0, GATEWAY, 1, 10200);
+
+		assertEquals(2, estimator.getSampleCount(0, 10250));
+		assertEquals(1, estimator.getSampleCount(0, 10251));
+		assertEquals(0, estimator.getSampleCount(0, 10451));
+	}
+
+	@Test
+	public void negativeMaximumAgeRejected() {
+
+		assertThrows(IllegalArgumentException.class, () -> new LocationEstimator(1, 8, -1));
+	}
+}
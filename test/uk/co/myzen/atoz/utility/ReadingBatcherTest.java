@@ -0,0 +1,271 @@
+package uk.co.myzen.atoz.utility;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import uk.co.myzen.atoz.utility.Airtime.AirtimeException;
+import uk.co.myzen.atoz.utility.Airtime.Band;
+
+/**
+ * @author howard
+ *
+ *         {@link ReadingBatcher} plans against the airtime of their frames and an
+ *         exhaustive search, and rejecting readings that cannot fit in a frame.
+ *
+ */
+public class ReadingBatcherTest {
+
+	/**
+	 * @return the airtime of the plan's frames worked out from the Airtime, each
+	 *         frame being checked to cost something and to respect the latency
+	 */
+	private static long check(ReadingBatcher batcher, int[] sizes, long[] timesMillis, long msMaxLatency,
+			ReadingBatcher.Plan plan) throws AirtimeException {
+
+		long tenths = 0;
+
+		int start = 0;
+
+		for (int end : plan.getFrameEnds()) {
+
+			assertTrue(end > start);
+
+			int bytes = batcher.getFrameOverhead();
+
+			for (int i = start; i < end; i++) {
+
+				bytes += sizes[i];
+			}
+
+			if (null != timesMillis) {
+
+				assertTrue(timesMillis[end - 1] - timesMillis[start] <= msMaxLatency);
+			}
+
+			int frame = batcher.getAirtime().tenthsMsAirtimeEstimate(bytes);
+
+			assertTrue(frame > 0, bytes + " bytes");
+
+			tenths += frame;
+
+			start = end;
+		}
+
+		assertEquals(sizes.length, start);
+
+		return tenths;
+	}
+
+	/**
+	 * @return the least airtime over every way of splitting the readings, and the
+	 *         fewest frames giving it
+	 */
+	private static long[] exhaustive(ReadingBatcher batcher, int[] sizes, long[] timesMillis, long msMaxLatency)
+			throws AirtimeException {
+
+		int maxReadingBytes = batcher.getAirtime().getMaximumPayloadSize() - batcher.getFrameOverhead();
+
+		long[] best = { Long.MAX_VALUE, Long.MAX_VALUE };
+
+		// bit i set when a frame ends after reading i
+		for (int ends = 0; ends < 1 << (sizes.length - 1); ends++) {
+
+			long tenths = 0;
+			long frames = 0;
+
+			int bytes = 0;
+			int start = 0;
+
+			for (int i = 0; i < sizes.length && tenths < Long.MAX_VALUE; i++) {
+
+				bytes += sizes[i];
+
+				if (i == sizes.length - 1 || 0 != (ends & 1 << i)) {
+
+					if (bytes > maxReadingBytes
+							|| (null != timesMillis && timesMillis[i] - timesMillis[start] > msMaxLatency)) {
+
+						tenths = Long.MAX_VALUE;
+
+					} else {
+
+						tenths += batcher.getAirtime().tenthsMsAirtimeEstimate(bytes + batcher.getFrameOverhead());
+						frames++;
+					}
+
+					bytes = 0;
+					start = i + 1;
+				}
+			}
+
+			if (tenths < best[0] || (tenths == best[0] && frames < best[1])) {
+
+				best[0] = tenths;
+				best[1] = frames;
+			}
+		}
+
+		return best;
+	}
+
+	@Test
+	public void beatsFewestFramesOnSteps() throws AirtimeException {
+
+		ReadingBatcher batcher = new ReadingBatcher(Airtime.getInstance(Band.EU868, 125000, 12));
+
+		int[] sizes = { 20, 18, 24 };
+
+		// holding the second reading back avoids a step in the first frame
+		ReadingBatcher.Plan plan = batcher.plan(sizes);
+		ReadingBatcher.Plan fewest = batcher.fewestFrames(sizes, null, Long.MAX_VALUE);
+
+		assertArrayEquals(new int[] { 1, 3 }, plan.getFrameEnds());
+		assertArrayEquals(new int[] { 2, 3 }, fewest.getFrameEnds());
+
+		assertEquals(check(batcher, sizes, null, Long.MAX_VALUE, plan), plan.getTenthsMsAirtime());
+		assertEquals(check(batcher, sizes, null, Long.MAX_VALUE, fewest), fewest.getTenthsMsAirtime());
+
+		assertTrue(plan.getTenthsMsAirtime() < fewest.getTenthsMsAirtime());
+	}
+
+	@Test
+	public void largeUS915FramesCostAirtime() throws AirtimeException {
+
+		ReadingBatcher batcher = new ReadingBatcher(Airtime.getInstance(Band.US915, 125000, 7), 2);
+
+		for (int[] sizes : new int[][] { { 100, 100 }, { 60, 60, 60, 60 }, { 145, 1, 1, 93 }, { 239 } }) {
+
+			ReadingBatcher.Plan plan = batcher.plan(sizes);
+
+			assertEquals(check(batcher, sizes, null, Long.MAX_VALUE, plan), plan.getTenthsMsAirtime());
+			assertEquals(exhaustive(batcher, sizes, null, Long.MAX_VALUE)[0], plan.getTenthsMsAirtime());
+		}
+	}
+
+	@Test
+	public void respectsLatency() throws AirtimeException {
+
+		ReadingBatcher batcher = new ReadingBatcher(Airtime.getInstance(Band.EU868, 125000, 9));
+
+		int[] sizes = { 10, 10, 10 };
+		long[] timesMillis = { 0, 400, 1000 };
+
+		assertEquals(1, batcher.plan(sizes, timesMillis, 1000).getFrameCount());
+
+		ReadingBatcher.Plan plan = batcher.plan(sizes, timesMillis, 999);
+
+		assertArrayEquals(new int[] { 2, 3 }, plan.getFrameEnds());
+		assertEquals(check(batcher, sizes, timesMillis, 999, plan), plan.getTenthsMsAirtime());
+
+		assertArrayEquals(new int[] { 1, 2, 3 }, batcher.plan(sizes, timesMillis, 399).getFrameEnds());
+	}
+
+	@Test
+	public void matchesExhaustiveSearch() throws AirtimeException {
+
+		Random random = new Random(18);
+
+		Airtime[] airtimes = { Airtime.getInstance(Band.EU868, 125000, 12), Airtime.getInstance(Band.EU868, 125000, 7),
+				Airtime.getInstance(Band.US915, 125000, 7), Airtime.getInstance(Band.US915, 500000, 10) };
+
+		for (int trial = 0; trial < 2000; trial++) {
+
+			Airtime airtime = airtimes[trial % airtimes.length];
+
+			int frameOverhead = random.nextInt(4);
+
+			ReadingBatcher batcher = new ReadingBatcher(airtime, frameOverhead);
+
+			int[] sizes = new int[1 + random.nextInt(10)];
+			long[] timesMillis = new long[sizes.length];
+
+			int largest = airtime.getMaximumPayloadSize() - frameOverhead;
+
+			for (int i = 0; i < sizes.length; i++) {
+
+				sizes[i] = random.nextInt(1 + largest / (1 + random.nextInt(4)));
+
+				timesMillis[i] = i > 0 ? timesMillis[i - 1] + random.nextInt(1000) : 0;
+			}
+
+			long msMaxLatency = random.nextBoolean() ? Long.MAX_VALUE : random.nextInt(3000);
+
+			ReadingBatcher.Plan plan = batcher.plan(sizes, timesMillis, msMaxLatency);
+			ReadingBatcher.Plan fewest = batcher.fewestFrames(sizes, timesMillis, msMaxLatency);
+
+			long[] best = exhaustive(batcher, sizes, timesMillis, msMaxLatency);
+
+			String name = airtime.getBand() + " " + airtime.getBandWidth() + " " + airtime.getSpreadingFactor()
+					+ " trial " + trial;
+
+			assertEquals(best[0], plan.getTenthsMsAirtime(), name);
+			assertEquals(best[1], plan.getFrameCount(), name);
+			assertEquals(plan.getTenthsMsAirtime(), check(batcher, sizes, timesMillis, msMaxLatency, plan), name);
+
+			assertEquals(fewest.getTenthsMsAirtime(), check(batcher, sizes, timesMillis, msMaxLatency, fewest), name);
+			assertTrue(plan.getTenthsMsAirtime() <= fewest.getTenthsMsAirtime(), name);
+			assertTrue(plan.getFrameCount() >= fewest.getFrameCount(), name);
+		}
+	}
+
+	@Test
+	public void tiesBreakToFewerFrames() throws AirtimeException {
+
+		// frames of up to 12 bytes costing 10 per started 5 bytes, so splitting on a
+		// multiple of 5 costs the same as not splitting
+		int[] tenthsMsAirtime = new int[13];
+
+		for (int bytes = 0; bytes < tenthsMsAirtime.length; bytes++) {
+
+			tenthsMsAirtime[bytes] = 10 * ((bytes + 4) / 5);
+		}
+
+		ReadingBatcher batcher = new ReadingBatcher(Airtime.getInstance(Band.EU868, 125000, 7), 0, tenthsMsAirtime);
+
+		ReadingBatcher.Plan plan = batcher.plan(new int[] { 5, 5 });
+
+		assertArrayEquals(new int[] { 2 }, plan.getFrameEnds());
+		assertEquals(20, plan.getTenthsMsAirtime());
+
+		plan = batcher.plan(new int[] { 5, 5, 5 });
+
+		assertEquals(2, plan.getFrameCount());
+		assertEquals(30, plan.getTenthsMsAirtime());
+
+		// three frames of 5, 5 and 3 bytes cost the same as two
+		plan = batcher.plan(new int[] { 1, 1, 1, 1, 1, 5, 3 });
+
+		assertEquals(2, plan.getFrameCount());
+		assertEquals(30, plan.getTenthsMsAirtime());
+	}
+
+	@Test
+	public void oversizedReadingsRejected() throws AirtimeException {
+
+		Airtime airtime = Airtime.getInstance(Band.EU868, 125000, 12);
+
+		int frameOverhead = 13;
+
+		ReadingBatcher batcher = new ReadingBatcher(airtime, frameOverhead);
+
+		int largest = airtime.getMaximumPayloadSize() - frameOverhead;
+
+		assertEquals(1, batcher.plan(new int[] { largest }).getFrameCount());
+
+		// one byte too many, and sizes that overflow once the overhead is added
+		for (int size : new int[] { largest + 1, Integer.MAX_VALUE - frameOverhead + 1, Integer.MAX_VALUE }) {
+
+			AirtimeException e = assertThrows(AirtimeException.class, () -> batcher.plan(new int[] { 1, size }));
+
+			assertEquals(Float.valueOf(airtime.getMaxAirtime()), e.getContext());
+			assertEquals("Invalid reading size " + size + " at 1 for EU868 BW125 SF12 Needs to be in range 0 to "
+					+ largest, e.getMessage());
+		}
+	}
+}
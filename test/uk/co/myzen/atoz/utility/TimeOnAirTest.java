@@ -0,0 +1,92 @@
+package uk.co.myzen.atoz.utility;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import uk.co.myzen.atoz.utility.Airtime.AirtimeException;
+import uk.co.myzen.atoz.utility.Airtime.Band;
+
+/**
+ * @author howard
+ *
+ *         {@link TimeOnAir} against every {@link Airtime} table, and
+ *         bandwidths beyond those tabulated.
+ *
+ */
+public class TimeOnAirTest {
+
+	private static final int[] BANDWIDTHS = { 125000, 250000, 500000 };
+
+	@Test
+	public void matchesEveryAirtimeTable() throws AirtimeException {
+
+		int combinations = 0;
+
+		for (Band band : Band.values()) {
+
+			for (int bw : BANDWIDTHS) {
+
+				for (int sf = 7; sf <= 12; sf++) {
+
+					Airtime airtime;
+
+					try {
+
+						airtime = Airtime.getInstance(band, bw, sf);
+
+					} catch (AirtimeException e) {
+
+						continue; // unsupported combination
+					}
+
+					combinations++;
+
+					TimeOnAir timeOnAir = TimeOnAir.getInstance(sf, bw);
+
+					for (int payloadSize = 0; payloadSize <= airtime.getMaximumPayloadSize(); payloadSize++) {
+
+						String name = band + " BW" + bw + " SF" + sf + " payload " + payloadSize;
+
+						double ms = timeOnAir.msTimeOnAir(payloadSize + TimeOnAir.LORAWAN_OVERHEAD);
+
+						// every tabulated value is the formula rounded to a tenth of a mS
+						assertEquals(timeOnAir.tenthsMsTimeOnAir(payloadSize + TimeOnAir.LORAWAN_OVERHEAD),
+								airtime.tenthsMsAirtimeEstimate(payloadSize), name);
+
+						assertEquals(ms, airtime.msAirtimeEstimate(payloadSize), 0.05 + 1e-6, name);
+					}
+
+					assertEquals(timeOnAir.msTimeOnAir(airtime.getMaximumPayloadSize() + TimeOnAir.LORAWAN_OVERHEAD),
+							airtime.getMaxAirtime(), 0.05 + 1e-6, band + " BW" + bw + " SF" + sf);
+				}
+			}
+		}
+
+		assertEquals(17, combinations);
+	}
+
+	@Test
+	public void wideBandwidths() throws AirtimeException {
+
+		TimeOnAir wide = TimeOnAir.getInstance(12, 1625000);
+
+		assertEquals(1625000, wide.getBandWidth());
+		assertEquals(12, wide.getSpreadingFactor());
+
+		assertSame(wide, TimeOnAir.getInstance(12, 1625000));
+		assertNotSame(wide, TimeOnAir.getInstance(12, 812500));
+
+		TimeOnAir largest = TimeOnAir.getInstance(5, Integer.MAX_VALUE, 4, 0xffff, false, false,
+				TimeOnAir.LowDataRateOptimise.ON);
+
+		assertEquals(Integer.MAX_VALUE, largest.getBandWidth());
+		assertEquals(0xffff, largest.getPreambleLength());
+		assertEquals(4, largest.getCodingRate());
+
+		// airtime scales inversely with bandwidth
+		assertEquals(TimeOnAir.getInstance(12, 125000).msTimeOnAir(20) / 13, wide.msTimeOnAir(20), 1e-9);
+	}
+}